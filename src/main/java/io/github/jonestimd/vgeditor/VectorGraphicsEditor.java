@@ -23,6 +23,7 @@ package io.github.jonestimd.vgeditor;
 
 import java.util.ResourceBundle;
 
+import io.github.jonestimd.vgeditor.svg.ShapeFactory;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -31,6 +32,7 @@ import javafx.stage.Stage;
 public class VectorGraphicsEditor extends Application {
     @Override
     public void start(Stage primaryStage) throws Exception {
+        ShapeFactory.setLazyPaths(true);
         FXMLLoader loader = new FXMLLoader();
         loader.setResources(ResourceBundle.getBundle("io.github.jonestimd.vgeditor.labels"));
         Scene scene = new Scene(loader.load(getClass().getResourceAsStream("Main.fxml")));
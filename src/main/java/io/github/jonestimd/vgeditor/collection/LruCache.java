@@ -27,10 +27,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * A bounded cache that evicts the least recently used entry.  Counts hits and misses for lookups that use a factory.
+ * <strong>Note:</strong> This class is not thread safe.
+ */
 public class LruCache<K, V> {
     private final int size;
     private final Map<K, V> cache = new HashMap<>();
     private final List<K> usage;
+    private long hits;
+    private long misses;
 
     public LruCache(int size) {
         this.size = size;
@@ -57,8 +63,24 @@ public class LruCache<K, V> {
     public V get(K key, Function<K, V> factory) {
         V value = get(key);
         if (value == null) {
+            misses++;
             put(key, value = factory.apply(key));
         }
+        else hits++;
         return value;
     }
+
+    /**
+     * @return the number of calls to {@link #get(Object, Function)} that found a cached value
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of calls to {@link #get(Object, Function)} that created a new value
+     */
+    public long getMisses() {
+        return misses;
+    }
 }
@@ -0,0 +1,358 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.collection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A loose quadtree that finds the items whose bounding boxes intersect an area.  Each item is stored once, in a cell
+ * that contains its center and is at least as large as the item.  A cell is split when it holds more than a few items
+ * and its items are moved to the child cells that they fit in.  A cell's items can extend past the
+ * cell by half of the cell's size, so that items that straddle cell boundaries don't collect in the root.  The tree
+ * grows as needed to contain the items, so it doesn't require the extent of the items up front.  When items are
+ * removed, a subtree that no longer holds more than a few items is merged back into one cell and empty cells are
+ * dropped.
+ * <strong>Note:</strong> This class is not thread safe.
+ */
+public class QuadTree<T> {
+    /** the number of items that a cell can hold before it is split */
+    private static final int CAPACITY = 8;
+    private static final int MAX_DEPTH = 24;
+
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    private Cell<T> root;
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    public void clear() {
+        entries.clear();
+        root = null;
+    }
+
+    /**
+     * Add an item or update the bounds of an item that is already in the tree.
+     * @throws IllegalArgumentException if the bounds are not finite
+     */
+    public void put(T item, double minX, double minY, double maxX, double maxY) {
+        if (!isFinite(minX) || !isFinite(minY) || !isFinite(maxX) || !isFinite(maxY) || maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException("Invalid bounds");
+        }
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entries.put(item, entry = new Entry<>(item));
+            entry.setBounds(minX, minY, maxX, maxY);
+            insert(entry);
+        }
+        else {
+            Cell<T> cell = entry.cell;
+            cell.remove(entry);
+            entry.setBounds(minX, minY, maxX, maxY);
+            insert(entry);
+            prune(cell);
+        }
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+
+    /**
+     * @return true if the item was in the tree
+     */
+    public boolean remove(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry != null) {
+            Cell<T> cell = entry.cell;
+            cell.remove(entry);
+            if (entries.isEmpty()) root = null;
+            else prune(cell);
+        }
+        return entry != null;
+    }
+
+    /**
+     * @return the number of cells in the tree
+     */
+    int getCellCount() {
+        int count = 0;
+        if (root != null) {
+            Deque<Cell<T>> cells = new ArrayDeque<>();
+            cells.push(root);
+            while (!cells.isEmpty()) {
+                Cell<T> cell = cells.pop();
+                count++;
+                if (cell.children != null) {
+                    for (Cell<T> child : cell.children) {
+                        if (child != null) cells.push(child);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pass each item whose bounds intersect the area to {@code consumer}.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, Consumer<? super T> consumer) {
+        if (root != null) {
+            Deque<Cell<T>> cells = new ArrayDeque<>();
+            cells.push(root);
+            while (!cells.isEmpty()) {
+                Cell<T> cell = cells.pop();
+                for (Entry<T> entry : cell.items) {
+                    if (entry.intersects(minX, minY, maxX, maxY)) consumer.accept(entry.item);
+                }
+                if (cell.children != null) {
+                    for (Cell<T> child : cell.children) {
+                        if (child != null && child.looseIntersects(minX, minY, maxX, maxY)) cells.push(child);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the items whose bounds intersect the area
+     */
+    public List<T> query(double minX, double minY, double maxX, double maxY) {
+        List<T> items = new ArrayList<>();
+        query(minX, minY, maxX, maxY, items::add);
+        return items;
+    }
+
+    private void insert(Entry<T> entry) {
+        if (root == null) root = new Cell<>(entry.centerX, entry.centerY, Math.max(entry.getSize(), 1d), 0);
+        while (!root.fits(entry)) grow(entry);
+        Cell<T> cell = root;
+        while (cell.children != null && entry.getSize() <= cell.halfSize) {
+            cell = cell.getChild(entry.centerX, entry.centerY);
+        }
+        add(cell, entry);
+    }
+
+    private void add(Cell<T> cell, Entry<T> entry) {
+        cell.add(entry);
+        if (cell.children == null && cell.items.size() > CAPACITY && cell.depth-root.depth < MAX_DEPTH) split(cell);
+    }
+
+    /**
+     * Move the items that fit in the child cells.
+     */
+    private void split(Cell<T> cell) {
+        cell.children = newChildren();
+        List<Entry<T>> items = new ArrayList<>(cell.items);
+        cell.items.clear();
+        cell.addCount(-items.size());
+        for (Entry<T> entry : items) {
+            add(entry.getSize() <= cell.halfSize ? cell.getChild(entry.centerX, entry.centerY) : cell, entry);
+        }
+    }
+
+    /**
+     * Called after an item has been removed from {@code cell}.  Merges the largest subtree containing {@code cell} that
+     * holds no more than {@link #CAPACITY} items back into one cell.  Otherwise, removes {@code cell} if it is empty.
+     */
+    private void prune(Cell<T> cell) {
+        Cell<T> merge = null;
+        for (Cell<T> ancestor = cell; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor.children != null && ancestor.count <= CAPACITY) merge = ancestor;
+        }
+        if (merge != null) merge.collapse();
+        else if (cell.count == 0 && cell.parent != null) cell.parent.removeChild(cell);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cell<T>[] newChildren() {
+        return (Cell<T>[]) new Cell<?>[4];
+    }
+
+    /**
+     * Replace the root with a cell that is twice as large and extends towards {@code entry}.
+     */
+    private void grow(Entry<T> entry) {
+        double x = entry.centerX < root.x ? root.x-root.halfSize : root.x+root.halfSize;
+        double y = entry.centerY < root.y ? root.y-root.halfSize : root.y+root.halfSize;
+        Cell<T> parent = new Cell<>(x, y, root.halfSize*2, root.depth-1);
+        parent.setChild(root);
+        root = parent;
+    }
+
+    private static class Cell<T> {
+        private final double x;
+        private final double y;
+        private final double halfSize;
+        /** the depth of the cell relative to the original root (decreases as the tree grows) */
+        private final int depth;
+        private final List<Entry<T>> items = new ArrayList<>();
+        /** null until the cell is split */
+        private Cell<T>[] children;
+        /** null for the root */
+        private Cell<T> parent;
+        /** the number of items in this cell and its descendants */
+        private int count;
+
+        private Cell(double x, double y, double halfSize, int depth) {
+            this.x = x;
+            this.y = y;
+            this.halfSize = halfSize;
+            this.depth = depth;
+        }
+
+        private int getQuadrant(double x, double y) {
+            return (x < this.x ? 0 : 1) + (y < this.y ? 0 : 2);
+        }
+
+        private Cell<T> getChild(double x, double y) {
+            int quadrant = getQuadrant(x, y);
+            if (children[quadrant] == null) {
+                double offset = halfSize/2;
+                children[quadrant] = new Cell<>(x < this.x ? this.x-offset : this.x+offset,
+                        y < this.y ? this.y-offset : this.y+offset, offset, depth+1);
+                children[quadrant].parent = this;
+            }
+            return children[quadrant];
+        }
+
+        private void setChild(Cell<T> child) {
+            if (children == null) children = newChildren();
+            children[getQuadrant(child.x, child.y)] = child;
+            child.parent = this;
+            addCount(child.count);
+        }
+
+        private void removeChild(Cell<T> child) {
+            children[getQuadrant(child.x, child.y)] = null;
+            child.parent = null;
+        }
+
+        /**
+         * Move the items of the descendants to this cell and remove the descendants.
+         */
+        private void collapse() {
+            Deque<Cell<T>> cells = new ArrayDeque<>();
+            cells.push(this);
+            while (!cells.isEmpty()) {
+                Cell<T> cell = cells.pop();
+                if (cell.children != null) {
+                    for (Cell<T> child : cell.children) {
+                        if (child != null) {
+                            child.items.forEach(this::addItem);
+                            cells.push(child);
+                        }
+                    }
+                }
+            }
+            children = null;
+        }
+
+        private void addCount(int delta) {
+            for (Cell<T> cell = this; cell != null; cell = cell.parent) {
+                cell.count += delta;
+            }
+        }
+
+        /**
+         * @return true if the entry's center is in this cell and it isn't larger than the cell
+         */
+        private boolean fits(Entry<T> entry) {
+            return Math.abs(entry.centerX-x) <= halfSize && Math.abs(entry.centerY-y) <= halfSize
+                    && entry.getSize() <= halfSize*2;
+        }
+
+        /**
+         * @return true if the area intersects the loose bounds of this cell (i.e. the area that can be covered by
+         *         this cell's items and its children's items)
+         */
+        private boolean looseIntersects(double minX, double minY, double maxX, double maxY) {
+            double looseSize = halfSize*2;
+            return minX <= x+looseSize && maxX >= x-looseSize && minY <= y+looseSize && maxY >= y-looseSize;
+        }
+
+        private void add(Entry<T> entry) {
+            addItem(entry);
+            addCount(1);
+        }
+
+        private void addItem(Entry<T> entry) {
+            entry.cell = this;
+            entry.index = items.size();
+            items.add(entry);
+        }
+
+        private void remove(Entry<T> entry) {
+            Entry<T> last = items.remove(items.size()-1);
+            if (last != entry) {
+                items.set(entry.index, last);
+                last.index = entry.index;
+            }
+            entry.cell = null;
+            addCount(-1);
+        }
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private double minX;
+        private double minY;
+        private double maxX;
+        private double maxY;
+        private double centerX;
+        private double centerY;
+        private Cell<T> cell;
+        /** the position of this entry in its cell's list of items */
+        private int index;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+
+        private void setBounds(double minX, double minY, double maxX, double maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.centerX = (minX+maxX)/2;
+            this.centerY = (minY+maxY)/2;
+        }
+
+        private double getSize() {
+            return Math.max(maxX-minX, maxY-minY);
+        }
+
+        private boolean intersects(double minX, double minY, double maxX, double maxY) {
+            return minX <= this.maxX && maxX >= this.minX && minY <= this.maxY && maxY >= this.minY;
+        }
+    }
+}
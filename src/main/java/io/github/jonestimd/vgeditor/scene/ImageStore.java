@@ -0,0 +1,284 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.scene.image.Image;
+
+/**
+ * Caches decoded images at the resolutions that they are displayed at.  Each image is decoded at the smallest power
+ * of two reduction that covers the requested size, so a small image view doesn't hold the full resolution pixels.
+ * Images that are no longer displayed are released by their views and evicted, least recently used first, when the
+ * decoded pixels exceed the memory budget.  An evicted image is decoded again from its {@link Source} the next time
+ * it is requested.
+ */
+public class ImageStore {
+    public static final long DEFAULT_BUDGET = 256L * 1024 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final ImageStore DEFAULT = new ImageStore(DEFAULT_BUDGET, ForkJoinPool.commonPool(), Platform::runLater);
+
+    /**
+     * The original data of an image.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private final Executor decoder;
+    private final Executor fxExecutor;
+    private final Map<Variant, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+    private final Map<Image, Entry> acquired = new IdentityHashMap<>();
+    private final Map<Source, Dimension2D> sizes = new WeakHashMap<>();
+    private final LongAdder decodeNanos = new LongAdder();
+    private long budget;
+    private long usedBytes;
+
+    public static ImageStore getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param budget the memory budget for the decoded images (in bytes)
+     * @param decoder the executor used to decode images
+     * @param fxExecutor the executor used to deliver images to the callers of {@link #acquire}
+     */
+    public ImageStore(long budget, Executor decoder, Executor fxExecutor) {
+        this.budget = budget;
+        this.decoder = decoder;
+        this.fxExecutor = fxExecutor;
+    }
+
+    /**
+     * @return the total time spent decoding images (in nanoseconds)
+     */
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Change the memory budget.  Released images are evicted if the new budget is exceeded.
+     */
+    public synchronized void setBudget(long budget) {
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * @return the memory used by the decoded images (in bytes)
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return the full resolution size of the image or null if it isn't known yet
+     */
+    public synchronized Dimension2D getSize(Source source) {
+        return sizes.get(source);
+    }
+
+    /**
+     * Get an image that has at least the requested resolution, decoding it in the background if it isn't cached.  The
+     * image must be passed to {@link #release} when it is no longer displayed.
+     * @param width the required width in pixels (0 for full resolution)
+     * @param height the required height in pixels (0 for full resolution)
+     * @param callback called on the FX thread with the image (called with null if the image can't be decoded)
+     */
+    public void acquire(Source source, double width, double height, Consumer<Image> callback) {
+        acquire(source, width, height, 1, callback);
+    }
+
+    /**
+     * Get an image that has at least the requested resolution on a display with the given output scale, decoding it
+     * in the background if it isn't cached.  The image must be passed to {@link #release} when it is no longer
+     * displayed.
+     * @param width the required width in scene units (0 for full resolution)
+     * @param height the required height in scene units (0 for full resolution)
+     * @param outputScale the number of display pixels per scene unit (greater than 1 on a HiDPI display)
+     * @param callback called on the FX thread with the image (called with null if the image can't be decoded)
+     */
+    public void acquire(Source source, double width, double height, double outputScale, Consumer<Image> callback) {
+        CompletableFuture.supplyAsync(() -> acquire(source, width, height, outputScale), decoder)
+                .whenComplete((image, error) -> fxExecutor.execute(() -> callback.accept(image)));
+    }
+
+    private Image acquire(Source source, double width, double height, double outputScale) {
+        try {
+            Dimension2D size = getSize(source);
+            if (size == null) size = readSize(source);
+            Variant variant = new Variant(source, getLevel(size, width, height, outputScale));
+            synchronized (this) {
+                Entry entry = entries.get(variant);
+                if (entry != null) return entry.acquire();
+            }
+            long start = System.nanoTime();
+            Image image = decode(variant, size);
+            decodeNanos.add(System.nanoTime()-start);
+            synchronized (this) {
+                Entry entry = entries.get(variant);
+                if (entry == null) {
+                    entry = new Entry(image);
+                    entries.put(variant, entry);
+                    usedBytes += entry.bytes;
+                }
+                Image result = entry.acquire();
+                evict();
+                return result;
+            }
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Mark an image as no longer displayed, so that it can be evicted.
+     */
+    public synchronized void release(Image image) {
+        Entry entry = acquired.get(image);
+        if (entry != null && --entry.users == 0) {
+            acquired.remove(image);
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (usedBytes > budget && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.users == 0) {
+                iterator.remove();
+                usedBytes -= entry.bytes;
+            }
+        }
+    }
+
+    /**
+     * @return the number of times the image has to be halved to get the requested size in display pixels
+     */
+    private static int getLevel(Dimension2D size, double width, double height, double outputScale) {
+        if (width <= 0 || height <= 0 || size.getWidth() <= 0 || size.getHeight() <= 0) return 0;
+        double scale = outputScale > 0 ? outputScale : 1;
+        double reduction = Math.min(size.getWidth() / (width*scale), size.getHeight() / (height*scale));
+        return reduction < 2 ? 0 : (int) (Math.log(reduction) / Math.log(2));
+    }
+
+    private Dimension2D readSize(Source source) throws IOException {
+        Dimension2D size = null;
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.open())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers != null && readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    size = new Dimension2D(reader.getWidth(0), reader.getHeight(0));
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+        if (size == null) {
+            Image image = decode(source, 0, 0);
+            size = new Dimension2D(image.getWidth(), image.getHeight());
+        }
+        synchronized (this) {
+            sizes.put(source, size);
+        }
+        return size;
+    }
+
+    private static Image decode(Variant variant, Dimension2D size) throws IOException {
+        if (variant.level == 0) return decode(variant.source, 0, 0);
+        double scale = Math.pow(2, variant.level);
+        return decode(variant.source, Math.ceil(size.getWidth() / scale), Math.ceil(size.getHeight() / scale));
+    }
+
+    private static Image decode(Source source, double width, double height) throws IOException {
+        try (InputStream input = source.open()) {
+            Image image = new Image(input, width, height, true, true);
+            if (image.isError()) throw new IOException("Invalid image", image.getException());
+            return image;
+        }
+    }
+
+    private static class Variant {
+        private final Source source;
+        private final int level;
+
+        private Variant(Source source, int level) {
+            this.source = source;
+            this.level = level;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Variant that = (Variant) obj;
+            return level == that.level && source.equals(that.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, level);
+        }
+    }
+
+    private class Entry {
+        private final Image image;
+        private final long bytes;
+        private int users;
+
+        private Entry(Image image) {
+            this.image = image;
+            this.bytes = (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+        }
+
+        private Image acquire() {
+            if (users++ == 0) acquired.put(image, this);
+            return image;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * Runs tasks on the JavaFX application thread on the next pulse.  Tasks submitted from other threads are handed to the
+ * application thread first.
+ */
+public class PulseExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private AnimationTimer timer;
+
+    @Override
+    public void execute(Runnable task) {
+        if (Platform.isFxApplicationThread()) {
+            tasks.add(task);
+            if (timer == null) timer = new Timer();
+            timer.start();
+        }
+        else Platform.runLater(() -> execute(task));
+    }
+
+    private class Timer extends AnimationTimer {
+        @Override
+        public void handle(long now) {
+            stop();
+            List<Runnable> batch = new ArrayList<>(tasks);
+            tasks.clear();
+            batch.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+/**
+ * Caches the inverse of a node's local to scene transform so that converting screen coordinates to the node's
+ * coordinates doesn't have to invert the transform chain on every mouse event.  The cached inverse is cleared when
+ * the transform of the node or one of its ancestors changes.  The offset of the scene on the screen is not cached, so
+ * moving the window doesn't clear the cache.  Only the 2D part of the transform is used.
+ */
+public class ScreenTransform implements InvalidationListener {
+    private static final Object KEY = ScreenTransform.class;
+
+    private final Node node;
+    private boolean valid = false;
+    private boolean invertible;
+    private double mxx, mxy, tx;
+    private double myx, myy, ty;
+
+    /**
+     * @return the cached transform for the node
+     */
+    public static ScreenTransform of(Node node) {
+        Object transform = node.getProperties().get(KEY);
+        if (transform instanceof ScreenTransform) return (ScreenTransform) transform;
+        ScreenTransform screenTransform = new ScreenTransform(node);
+        node.getProperties().put(KEY, screenTransform);
+        return screenTransform;
+    }
+
+    private ScreenTransform(Node node) {
+        this.node = node;
+        node.localToSceneTransformProperty().addListener(this);
+    }
+
+    @Override
+    public void invalidated(Observable observable) {
+        valid = false;
+    }
+
+    /**
+     * @return the point in the node's coordinates or null if the node isn't displayed or its transform isn't invertible
+     */
+    public Point2D screenToLocal(double screenX, double screenY) {
+        Window window = getWindow();
+        if (window == null) return null;
+        Scene scene = node.getScene();
+        return sceneToLocal(screenX-scene.getX()-window.getX(), screenY-scene.getY()-window.getY());
+    }
+
+    public Point2D screenToLocal(Point2D screenPoint) {
+        return screenToLocal(screenPoint.getX(), screenPoint.getY());
+    }
+
+    /**
+     * @return the bounds in the node's coordinates or null if the node isn't displayed or its transform isn't
+     * invertible
+     */
+    public Bounds screenToLocal(Bounds screenBounds) {
+        Window window = getWindow();
+        if (window == null) return null;
+        Scene scene = node.getScene();
+        double dx = scene.getX()+window.getX(), dy = scene.getY()+window.getY();
+        return sceneToLocal(new BoundingBox(screenBounds.getMinX()-dx, screenBounds.getMinY()-dy,
+                screenBounds.getWidth(), screenBounds.getHeight()));
+    }
+
+    /**
+     * @return the point in the node's coordinates or null if the node's transform isn't invertible
+     */
+    public Point2D sceneToLocal(double sceneX, double sceneY) {
+        if (!validate()) return null;
+        return new Point2D(mxx*sceneX+mxy*sceneY+tx, myx*sceneX+myy*sceneY+ty);
+    }
+
+    public Point2D sceneToLocal(Point2D scenePoint) {
+        return sceneToLocal(scenePoint.getX(), scenePoint.getY());
+    }
+
+    /**
+     * @return the bounds of the transformed corners in the node's coordinates or null if the node's transform isn't
+     * invertible
+     */
+    public Bounds sceneToLocal(Bounds sceneBounds) {
+        if (!validate()) return null;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 4; i++) {
+            double x = (i & 1) == 0 ? sceneBounds.getMinX() : sceneBounds.getMaxX();
+            double y = (i & 2) == 0 ? sceneBounds.getMinY() : sceneBounds.getMaxY();
+            double localX = mxx*x+mxy*y+tx, localY = myx*x+myy*y+ty;
+            minX = Math.min(minX, localX);
+            minY = Math.min(minY, localY);
+            maxX = Math.max(maxX, localX);
+            maxY = Math.max(maxY, localY);
+        }
+        return new BoundingBox(minX, minY, maxX-minX, maxY-minY);
+    }
+
+    private Window getWindow() {
+        Scene scene = node.getScene();
+        return scene == null ? null : scene.getWindow();
+    }
+
+    /**
+     * Invert the local to scene transform if it has changed.  Getting the transform also makes its property fire the
+     * next change.
+     * @return true if the transform is invertible
+     */
+    private boolean validate() {
+        if (!valid) {
+            Transform transform = node.getLocalToSceneTransform();
+            double det = transform.getMxx()*transform.getMyy()-transform.getMxy()*transform.getMyx();
+            invertible = det != 0 && !Double.isNaN(det) && !Double.isInfinite(det);
+            if (invertible) {
+                mxx = transform.getMyy()/det;
+                mxy = -transform.getMxy()/det;
+                myx = -transform.getMyx()/det;
+                myy = transform.getMxx()/det;
+                tx = -(mxx*transform.getTx()+mxy*transform.getTy());
+                ty = -(myx*transform.getTx()+myy*transform.getTy());
+            }
+            valid = true;
+        }
+        return invertible;
+    }
+}
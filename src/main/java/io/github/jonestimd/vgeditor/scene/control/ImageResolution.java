@@ -0,0 +1,128 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.control;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import io.github.jonestimd.vgeditor.scene.PulseExecutor;
+import io.github.jonestimd.vgeditor.scene.model.ImageModel;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+/**
+ * Keeps the store backed images in a diagram at the resolution needed for their size on the display.  The images are
+ * tracked by listening to the diagram's groups, so that an update doesn't have to visit every node in the diagram.
+ * Requests for an update are coalesced and applied once per pulse.  Images that are removed from the diagram are
+ * released, so that the store can evict them.
+ */
+public class ImageResolution {
+    private final Supplier<Bounds> visibleArea;
+    private final DoubleSupplier outputScale;
+    private final Executor pulseExecutor;
+    private final Set<ImageModel> images = new LinkedHashSet<>();
+    private final ListChangeListener<Node> childrenListener = this::onChildrenChanged;
+    private boolean scheduled = false;
+
+    /**
+     * @param visibleArea supplies the visible part of the scene
+     * @param outputScale supplies the number of display pixels per scene unit
+     */
+    public ImageResolution(Group diagram, Supplier<Bounds> visibleArea, DoubleSupplier outputScale) {
+        this(diagram, visibleArea, outputScale, new PulseExecutor());
+    }
+
+    /**
+     * @param pulseExecutor the executor used to apply the update on the next pulse
+     */
+    ImageResolution(Group diagram, Supplier<Bounds> visibleArea, DoubleSupplier outputScale, Executor pulseExecutor) {
+        this.visibleArea = visibleArea;
+        this.outputScale = outputScale;
+        this.pulseExecutor = pulseExecutor;
+        diagram.getChildren().addListener(childrenListener);
+        diagram.getChildren().forEach(this::addImages);
+    }
+
+    /**
+     * @return the number of store backed images in the diagram
+     */
+    public int size() {
+        return images.size();
+    }
+
+    /**
+     * Update the images on the next pulse.
+     */
+    public void invalidate() {
+        if (!scheduled) {
+            scheduled = true;
+            pulseExecutor.execute(() -> {
+                scheduled = false;
+                update();
+            });
+        }
+    }
+
+    /**
+     * Load the images that are visible at the resolution needed for their current size and release the others.
+     */
+    public void update() {
+        Bounds area = visibleArea.get();
+        double scale = outputScale.getAsDouble();
+        images.forEach(image -> image.updateResolution(area, scale));
+    }
+
+    private void onChildrenChanged(ListChangeListener.Change<? extends Node> change) {
+        while (change.next()) {
+            change.getRemoved().forEach(this::removeImages);
+            change.getAddedSubList().forEach(this::addImages);
+        }
+    }
+
+    private void addImages(Node node) {
+        if (node instanceof Group) {
+            Group group = (Group) node;
+            group.getChildren().addListener(childrenListener);
+            group.getChildren().forEach(this::addImages);
+        }
+        else if (node.getUserData() instanceof ImageModel && ((ImageModel) node.getUserData()).isStoreBacked()) {
+            images.add((ImageModel) node.getUserData());
+            invalidate();
+        }
+    }
+
+    private void removeImages(Node node) {
+        if (node instanceof Group) {
+            Group group = (Group) node;
+            group.getChildren().removeListener(childrenListener);
+            group.getChildren().forEach(this::removeImages);
+        }
+        else if (node.getUserData() instanceof ImageModel && images.remove(node.getUserData())) {
+            ((ImageModel) node.getUserData()).releaseImage();
+        }
+    }
+}
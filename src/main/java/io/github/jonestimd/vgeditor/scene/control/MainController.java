@@ -25,7 +25,9 @@ import java.io.File;
 
 import io.github.jonestimd.vgeditor.scene.control.selection.SelectionController;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
-import io.github.jonestimd.vgeditor.svg.SvgParser;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics;
+import io.github.jonestimd.vgeditor.svg.SnapshotCache;
+import io.github.jonestimd.vgeditor.svg.SvgLoadTask;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -35,13 +37,19 @@ import javafx.geometry.Bounds;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextArea;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.HBox;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Window;
 import javafx.stage.WindowEvent;
 
 public class MainController {
@@ -56,31 +64,49 @@ public class MainController {
     private Line yAxis = new Line();
     @FXML
     private Circle marker;
+    @FXML
+    private HBox loadStatus;
+    @FXML
+    private ProgressBar loadProgress;
 
     private ToolPaneLoader toolPaneLoader;
 
     private SelectionController selectionController;
 
+    private ImageResolution imageResolution;
+
+    private SvgLoadTask loadTask;
+    /** the metrics of the most recent load */
+    private LoadMetrics loadMetrics;
+
     private final ChangeListener<Node> selectionChangeListener = (observable, oldValue, newValue) -> {
         if (newValue != null && newValue.getUserData() instanceof NodeModel) ((NodeModel) newValue.getUserData()).edit(toolPaneLoader);
     };
 
     public void initialize() {
         scrollPane.setPrefSize(600, 500);
+        loadStatus.managedProperty().bind(loadStatus.visibleProperty());
         selectionController = new SelectionController(diagram, marker);
         selectionController.selectedProperty().addListener(selectionChangeListener);
+        imageResolution = new ImageResolution(diagram, this::getVisibleArea, this::getOutputScale);
         diagram.sceneProperty().addListener(new ChangeListener<Scene>() {
             @Override
             public void changed(ObservableValue<? extends Scene> observable, Scene oldValue, Scene newValue) {
                 diagram.sceneProperty().removeListener(this);
                 diagram.getScene().addEventFilter(MouseEvent.ANY, selectionController);
-                toolPaneLoader = new ToolPaneLoader(diagram);
-                diagram.getScene().getWindow().addEventHandler(WindowEvent.WINDOW_CLOSE_REQUEST, MainController.this::onClose);
+                toolPaneLoader = new ToolPaneLoader(diagram, selectionController.getIndex());
+                Window window = diagram.getScene().getWindow();
+                window.addEventHandler(WindowEvent.WINDOW_CLOSE_REQUEST, MainController.this::onClose);
+                window.outputScaleXProperty().addListener(scale -> imageResolution.invalidate());
+                window.outputScaleYProperty().addListener(scale -> imageResolution.invalidate());
             }
         });
         scrollPane.viewportBoundsProperty().addListener((observable, oldValue, newValue) -> {
             adjustAxes(diagram.getBoundsInLocal(), newValue);
+            imageResolution.invalidate();
         });
+        scrollPane.hvalueProperty().addListener(observable -> imageResolution.invalidate());
+        scrollPane.vvalueProperty().addListener(observable -> imageResolution.invalidate());
         diagram.boundsInLocalProperty().addListener((observable, oldValue, newValue) -> {
             adjustAxes(newValue, scrollPane.getViewportBounds());
         });
@@ -95,6 +121,18 @@ public class MainController {
         yAxis.setEndY(Math.max(diagram.getBoundsInLocal().getMaxY()+PADDING, viewportBounds.getMaxY()+minY-1));
     }
 
+    private Bounds getVisibleArea() {
+        return scrollPane.localToScene(scrollPane.getLayoutBounds());
+    }
+
+    /**
+     * @return the number of display pixels per scene unit on the display that is showing the window
+     */
+    private double getOutputScale() {
+        Window window = diagram.getScene() == null ? null : diagram.getScene().getWindow();
+        return window == null ? 1 : Math.max(window.getOutputScaleX(), window.getOutputScaleY());
+    }
+
     public void createFile(ActionEvent event) {
         System.out.println("new file");
     }
@@ -103,16 +141,42 @@ public class MainController {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select file");
         fileChooser.getExtensionFilters().addAll(
-                new ExtensionFilter("SVG files", "*.svg"),
+                new ExtensionFilter("SVG files", "*.svg", "*.svgz"),
                 new ExtensionFilter("All files", "*.*"));
         File file = fileChooser.showOpenDialog(null);  // workaround for JavaFX bug that disables resizing parent window
         if (file != null) {
-            try {
-                diagram.getChildren().clear();
-                new SvgParser().parse(file, diagram);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+            cancelOpen();
+            diagram.getChildren().clear();
+            loadTask = new SvgLoadTask(file, diagram, SnapshotCache.getDefault());
+            loadMetrics = loadTask.getMetrics();
+            loadTask.setOnFailed(event -> event.getSource().getException().printStackTrace());
+            loadTask.setOnSucceeded(event -> imageResolution.invalidate());
+            loadProgress.progressProperty().bind(loadTask.progressProperty());
+            loadStatus.visibleProperty().bind(loadTask.runningProperty());
+            Thread thread = new Thread(loadTask, "svg-loader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void cancelOpen() {
+        if (loadTask != null) {
+            loadTask.cancel();
+            loadTask = null;
+        }
+    }
+
+    /**
+     * Show the time spent in each phase of loading the current file.
+     */
+    public void showLoadMetrics() {
+        if (loadMetrics != null) {
+            TextArea report = new TextArea(loadMetrics.toJson());
+            report.setEditable(false);
+            Alert alert = new Alert(AlertType.INFORMATION);
+            alert.setHeaderText(null);
+            alert.getDialogPane().setContent(report);
+            alert.showAndWait();
         }
     }
 
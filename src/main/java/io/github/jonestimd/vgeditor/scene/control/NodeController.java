@@ -21,11 +21,12 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.control;
 
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
 import javafx.scene.Group;
 
 public interface NodeController<T extends NodeModel> {
-    void setDiagram(Group diagram);
+    void setDiagram(Group diagram, DiagramIndex index);
 
     MouseInputHandler getMouseHandler();
 
@@ -30,6 +30,8 @@ import java.util.function.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.github.jonestimd.vgeditor.scene.NodeAnchor;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.LocationModel;
 import io.github.jonestimd.vgeditor.scene.model.ShapeModel;
 import io.github.jonestimd.vgeditor.scene.model.SizeModel;
@@ -61,6 +63,7 @@ public abstract class ShapeController<T extends ShapeModel<?> & LocationModel &
     private Button newButton;
 
     private Group diagram;
+    private DiagramIndex index;
     private T model;
 
     private BiConsumer<Point2D, Point2D> drag;
@@ -101,8 +104,9 @@ public abstract class ShapeController<T extends ShapeModel<?> & LocationModel &
     }
 
     @Override
-    public void setDiagram(Group diagram) {
+    public void setDiagram(Group diagram, DiagramIndex index) {
         this.diagram = diagram;
+        this.index = index;
     }
 
     @Override
@@ -173,7 +177,7 @@ public abstract class ShapeController<T extends ShapeModel<?> & LocationModel &
         }
         else if (!isShortcutDown) {
             onNewNode();
-            Point2D point = diagram.screenToLocal(screenPoint);
+            Point2D point = ScreenTransform.of(diagram).screenToLocal(screenPoint);
             setLocationInputs(point.getX(), point.getY());
             drag = new NewNodeDrag();
         }
@@ -191,8 +195,13 @@ public abstract class ShapeController<T extends ShapeModel<?> & LocationModel &
         drag.accept(screenStart, screenEnd);
     }
 
+    /**
+     * The edits made while dragging are added to the diagram's index on each pulse.  Apply the final edit now so that
+     * the shape can be highlighted as soon as the drag ends.
+     */
     protected void endDrag() {
         drag = null;
+        index.update();
     }
 
     protected void createNode() {
@@ -219,8 +228,8 @@ public abstract class ShapeController<T extends ShapeModel<?> & LocationModel &
     private class NewNodeDrag implements BiConsumer<Point2D, Point2D> {
         @Override
         public void accept(Point2D screenStart, Point2D screenEnd) {
-            Point2D start = diagram.screenToLocal(screenStart);
-            Point2D end = diagram.screenToLocal(screenEnd);
+            Point2D start = ScreenTransform.of(diagram).screenToLocal(screenStart);
+            Point2D end = ScreenTransform.of(diagram).screenToLocal(screenEnd);
             setSizeInputs(getNewNodeSize(start, end));
             if (isValid()) {
                 if (model == null) createNode();
@@ -23,6 +23,7 @@ package io.github.jonestimd.vgeditor.scene.control;
 
 import java.util.Optional;
 
+import io.github.jonestimd.vgeditor.svg.NumberScanner;
 import javafx.scene.control.TextInputControl;
 import javafx.scene.input.KeyEvent;
 
@@ -36,6 +37,7 @@ public class TextFields {
     }
 
     public static Optional<Double> parseDouble(String text) {
-        return text.matches("-?\\.?\\d+(\\.\\d*)?") ? Optional.of(Double.parseDouble(text)) : Optional.empty();
+        double value = NumberScanner.parseDecimal(text);
+        return Double.isNaN(value) ? Optional.empty() : Optional.of(value);
     }
 }
@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
 
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Rectangle2D;
@@ -43,14 +44,16 @@ import javafx.util.Pair;
 public class ToolPaneLoader {
     private static final double MIN_WIDTH = 250;
     private final Group diagram;
+    private final DiagramIndex index;
     private final Stage stage = new Stage(StageStyle.UTILITY);
     private String fileName;
     private Pair<NodeController<?>, Pane> controllerPane;
     private final Map<String, Pair<NodeController<?>, Pane>> fileControllers = new HashMap<>();
     private final ResourceBundle bundle = new ResourceBundleWrapper(ResourceBundle.getBundle("io.github.jonestimd.vgeditor.labels"));
 
-    public ToolPaneLoader(Group diagram) {
+    public ToolPaneLoader(Group diagram, DiagramIndex index) {
         this.diagram = diagram;
+        this.index = index;
         Scene scene = new Scene(new VBox());
         scene.getAccelerators().putAll(diagram.getScene().getAccelerators());
         scene.getStylesheets().add(getClass().getResource("/io/github/jonestimd/vgeditor/styles.css").toExternalForm());
@@ -68,7 +71,7 @@ public class ToolPaneLoader {
         if (!fileName.equals(this.fileName)) {
             this.fileName = fileName;
             controllerPane = fileControllers.computeIfAbsent(fileName, this::load);
-            controllerPane.getKey().setDiagram(diagram);
+            controllerPane.getKey().setDiagram(diagram, index);
             stage.getScene().setRoot(controllerPane.getValue());
             stage.sizeToScene();
         }
@@ -0,0 +1,207 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.control.selection;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import io.github.jonestimd.vgeditor.collection.QuadTree;
+import io.github.jonestimd.vgeditor.scene.PulseExecutor;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+/**
+ * An index of the shapes in a diagram by their bounds in the diagram's coordinates.  Used to find the shapes that may
+ * be under the cursor without visiting every node in the diagram.  The index listens for changes to the diagram's
+ * groups, the shapes' bounds and the groups' transforms and records the affected shapes.  The recorded shapes are
+ * updated once per pulse or by the next query, whichever comes first.
+ */
+public class DiagramIndex {
+    private final Group diagram;
+    private final Executor pulseExecutor;
+    private final QuadTree<Node> tree = new QuadTree<>();
+    private final Set<Node> pending = new LinkedHashSet<>();
+    private final InvalidationListener boundsListener = observable -> markPending(getBean(observable));
+    private final InvalidationListener transformListener = observable -> markShapes((Group) getBean(observable));
+    private final ListChangeListener<Node> childrenListener = this::onChildrenChanged;
+    private boolean scheduled = false;
+    private long updateCount;
+    private long batchCount;
+    private long maintenanceNanos;
+
+    public DiagramIndex(Group diagram) {
+        this(diagram, new PulseExecutor());
+    }
+
+    /**
+     * @param pulseExecutor the executor used to apply the pending updates on the next pulse
+     */
+    DiagramIndex(Group diagram, Executor pulseExecutor) {
+        this.diagram = diagram;
+        this.pulseExecutor = pulseExecutor;
+        diagram.getChildren().addListener(childrenListener);
+        diagram.getChildren().forEach(this::addListeners);
+    }
+
+    /**
+     * @param area an area in the diagram's coordinates
+     * @return the shapes whose bounds intersect the area
+     */
+    public List<Node> getCandidates(Bounds area) {
+        update();
+        return tree.query(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY());
+    }
+
+    /**
+     * @return the number of shapes in the index
+     */
+    public int size() {
+        update();
+        return tree.size();
+    }
+
+    /**
+     * Apply the pending updates.
+     */
+    public void update() {
+        if (!pending.isEmpty()) {
+            long start = System.nanoTime();
+            for (Node node : pending) {
+                Bounds bounds = getDiagramBounds(node);
+                if (bounds == null || bounds.isEmpty()) tree.remove(node);
+                else tree.put(node, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+            }
+            updateCount += pending.size();
+            batchCount++;
+            pending.clear();
+            maintenanceNanos += System.nanoTime()-start;
+        }
+    }
+
+    /**
+     * @return the number of shapes waiting to be updated
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of shape updates that have been applied to the index
+     */
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * @return the number of batches of updates that have been applied to the index
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the time spent maintaining the index, including the handling of scene changes
+     */
+    public long getMaintenanceNanos() {
+        return maintenanceNanos;
+    }
+
+    private static Object getBean(Observable observable) {
+        return ((ReadOnlyProperty<?>) observable).getBean();
+    }
+
+    private void markPending(Object node) {
+        pending.add((Node) node);
+        if (!scheduled) {
+            scheduled = true;
+            pulseExecutor.execute(() -> {
+                scheduled = false;
+                update();
+            });
+        }
+    }
+
+    private void markShapes(Group group) {
+        for (Node node : group.getChildren()) {
+            if (node instanceof Group) markShapes((Group) node);
+            else markPending(node);
+        }
+    }
+
+    /**
+     * @return the bounds of the node in the diagram's coordinates or null if the node isn't in the diagram
+     */
+    private Bounds getDiagramBounds(Node node) {
+        Bounds bounds = node.getBoundsInParent();
+        Parent parent = node.getParent();
+        while (parent != null && parent != diagram) {
+            // use the transform property so that it will be invalidated by the next change
+            bounds = parent.getLocalToParentTransform().transform(bounds);
+            parent = parent.getParent();
+        }
+        return parent == null ? null : bounds;
+    }
+
+    private void onChildrenChanged(ListChangeListener.Change<? extends Node> change) {
+        long start = System.nanoTime();
+        while (change.next()) {
+            change.getRemoved().forEach(this::removeListeners);
+            change.getAddedSubList().forEach(this::addListeners);
+        }
+        maintenanceNanos += System.nanoTime()-start;
+    }
+
+    private void addListeners(Node node) {
+        if (node instanceof Group) {
+            Group group = (Group) node;
+            group.localToParentTransformProperty().addListener(transformListener);
+            group.getChildren().addListener(childrenListener);
+            group.getChildren().forEach(this::addListeners);
+        }
+        else {
+            node.boundsInParentProperty().addListener(boundsListener);
+            markPending(node);
+        }
+    }
+
+    private void removeListeners(Node node) {
+        if (node instanceof Group) {
+            Group group = (Group) node;
+            group.localToParentTransformProperty().removeListener(transformListener);
+            group.getChildren().removeListener(childrenListener);
+            group.getChildren().forEach(this::removeListeners);
+        }
+        else {
+            node.boundsInParentProperty().removeListener(boundsListener);
+            pending.remove(node);
+            tree.remove(node);
+        }
+    }
+}
@@ -23,6 +23,7 @@ package io.github.jonestimd.vgeditor.scene.control.selection;
 
 import java.util.function.Predicate;
 
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
@@ -45,12 +46,19 @@ public class HighlightFilter implements Predicate<Node> {
         this.bounds = new BoundingBox(screenX-HIGHLIGHT_OFFSET, screenY-HIGHLIGHT_OFFSET, HIGHLIGHT_SIZE, HIGHLIGHT_SIZE);
     }
 
+    /**
+     * @return the highlight range on the screen
+     */
+    public Bounds getBounds() {
+        return bounds;
+    }
+
     public boolean test(Node node) {
         if (node.getUserData() instanceof NodeModel) return ((NodeModel) node.getUserData()).isInSelectionRange(screenX, screenY);
         Bounds nodeBounds = node.getBoundsInLocal();
         if (node instanceof Parent || nodeBounds.getWidth() < HIGHLIGHT_SIZE || nodeBounds.getHeight() < HIGHLIGHT_SIZE) {
-            return node.screenToLocal(bounds).intersects(nodeBounds);
+            return ScreenTransform.of(node).screenToLocal(bounds).intersects(nodeBounds);
         }
-        return node.contains(node.screenToLocal(screenX, screenY));
+        return node.contains(ScreenTransform.of(node).screenToLocal(screenX, screenY));
     }
 }
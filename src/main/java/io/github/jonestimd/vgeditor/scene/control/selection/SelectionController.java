@@ -22,9 +22,12 @@
 package io.github.jonestimd.vgeditor.scene.control.selection;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import io.github.jonestimd.vgeditor.collection.IterableUtils;
 import io.github.jonestimd.vgeditor.scene.Nodes;
+import io.github.jonestimd.vgeditor.scene.PulseExecutor;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleObjectProperty;
@@ -45,7 +48,15 @@ public class SelectionController implements EventHandler<MouseEvent> {
     public static final int HIGHLIGHT_OFFSET = 5;
     public static final int HIGHLIGHT_SIZE = HIGHLIGHT_OFFSET*2;
     public static final int HIGHLIGHT_OFFSET_SQUARED = HIGHLIGHT_OFFSET*HIGHLIGHT_OFFSET;
+    /** cursor movements smaller than this distance in screen pixels don't update the highlight */
+    public static final double MIN_MOVE = 0.5;
     private final Group diagram;
+    private final DiagramIndex index;
+    private final Executor pulseExecutor;
+
+    private double cursorX = Double.NaN, cursorY = Double.NaN;
+    private boolean hoverPending;
+    private long droppedMoveCount;
 
     private Node highlighted;
     private final Property<Node> selected = new SimpleObjectProperty<>(this, "selected");
@@ -54,14 +65,35 @@ public class SelectionController implements EventHandler<MouseEvent> {
     private final Shape marker;
 
     public SelectionController(Group diagram, Shape marker) {
+        this(diagram, marker, new PulseExecutor());
+    }
+
+    /**
+     * @param pulseExecutor the executor used to update the highlight and the diagram index on the next pulse
+     */
+    SelectionController(Group diagram, Shape marker, Executor pulseExecutor) {
         this.diagram = diagram;
         this.marker = marker;
+        this.pulseExecutor = pulseExecutor;
+        this.index = new DiagramIndex(diagram, pulseExecutor);
     }
 
     public Node getHighlighted() {
         return highlighted;
     }
 
+    public DiagramIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the number of {@link MouseEvent#MOUSE_MOVED} events that were skipped or replaced by a later event
+     * before the next pulse
+     */
+    public long getDroppedMoveCount() {
+        return droppedMoveCount;
+    }
+
     public Property<Node> selectedProperty() {
         return selected;
     }
@@ -70,17 +102,55 @@ public class SelectionController implements EventHandler<MouseEvent> {
     public void handle(MouseEvent event) {
         if (event.getEventType() == MouseEvent.MOUSE_MOVED) onMouseMoved(event.getScreenX(), event.getScreenY());
         else if (event.getEventType() == MouseEvent.MOUSE_PRESSED && event.getButton() == MouseButton.PRIMARY) {
+            updateHighlight();
             selected.setValue(highlighted);
         }
     }
 
+    /**
+     * Record the cursor location and schedule a highlight update for the next pulse.  Only the last location received
+     * before the pulse is checked.
+     */
     private void onMouseMoved(double screenX, double screenY) {
-        List<Node> nodes = findNodes(diagram, new HighlightFilter(screenX, screenY));
+        if (Math.abs(screenX-cursorX) < MIN_MOVE && Math.abs(screenY-cursorY) < MIN_MOVE) droppedMoveCount++;
+        else {
+            cursorX = screenX;
+            cursorY = screenY;
+            if (hoverPending) droppedMoveCount++;
+            else {
+                hoverPending = true;
+                pulseExecutor.execute(this::updateHighlight);
+            }
+        }
+    }
+
+    private void updateHighlight() {
+        if (hoverPending) {
+            hoverPending = false;
+            highlight(cursorX, cursorY);
+        }
+    }
+
+    private void highlight(double screenX, double screenY) {
+        List<Node> nodes = findHighlightNodes(screenX, screenY);
         List<Node> matches = IterableUtils.minBy(nodes, Nodes::boundingArea); // TODO check path elements
         if (matches.isEmpty()) hideMarker();
         else showMarker(matches.get(0), screenX, screenY);
     }
 
+    /**
+     * Use the diagram's index to find the shapes whose bounds are near the cursor and then check those shapes with a
+     * {@link HighlightFilter}.
+     */
+    private List<Node> findHighlightNodes(double screenX, double screenY) {
+        HighlightFilter filter = new HighlightFilter(screenX, screenY);
+        Bounds area = ScreenTransform.of(diagram).screenToLocal(filter.getBounds());
+        if (area == null) return findNodes(diagram, filter);
+        List<Node> candidates = index.getCandidates(area);
+        candidates.removeIf(filter.negate());
+        return candidates;
+    }
+
     private void showMarker(Node node, double screenX, double screenY) {
         if (highlighted != null && highlighted != node) highlighted.setEffect(null);
         highlighted = node;
@@ -97,7 +167,7 @@ public class SelectionController implements EventHandler<MouseEvent> {
     }
 
     private void setMarker(Node node, double localX, double localY) {
-        Point2D onDiagram = diagram.sceneToLocal(node.localToScene(localX, localY));
+        Point2D onDiagram = ScreenTransform.of(diagram).sceneToLocal(node.localToScene(localX, localY));
         marker.setLayoutX(onDiagram.getX());
         marker.setLayoutY(onDiagram.getY());
     }
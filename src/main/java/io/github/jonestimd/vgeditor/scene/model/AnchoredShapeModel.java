@@ -22,6 +22,7 @@
 package io.github.jonestimd.vgeditor.scene.model;
 
 import io.github.jonestimd.vgeditor.scene.NodeAnchor;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.shape.Shape;
@@ -43,7 +44,7 @@ public abstract class AnchoredShapeModel<T extends Shape> extends ShapeModel<T>
     }
 
     public NodeAnchor getResizeAnchor(Point2D screenPoint) {
-        return NodeAnchor.forResize(shape.screenToLocal(screenPoint), getX(), getY(), getWidth(), getHeight());
+        return NodeAnchor.forResize(ScreenTransform.of(shape).screenToLocal(screenPoint), getX(), getY(), getWidth(), getHeight());
     }
 
     @Override
@@ -22,6 +22,7 @@
 package io.github.jonestimd.vgeditor.scene.model;
 
 import io.github.jonestimd.vgeditor.scene.NodeAnchor;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.shape.Ellipse;
@@ -85,7 +86,7 @@ public class EllipseModel extends ShapeModel<Ellipse> implements LocationModel,
 
     @Override
     public NodeAnchor getResizeAnchor(Point2D screenPoint) {
-        Point2D delta = shape.screenToLocal(screenPoint).subtract(shape.getCenterX(), shape.getCenterY());
+        Point2D delta = ScreenTransform.of(shape).screenToLocal(screenPoint).subtract(shape.getCenterX(), shape.getCenterY());
         if (Math.abs(delta.getY()) < shape.getRadiusY()/4 && Math.abs(delta.getX()) > shape.getRadiusX()*3/4) {
             return delta.getX() > 0 ? NodeAnchor.RIGHT : NodeAnchor.LEFT;
         }
@@ -116,7 +117,7 @@ public class EllipseModel extends ShapeModel<Ellipse> implements LocationModel,
 
     @Override
     public Point2D getMarkerLocation(double screenX, double screenY) {
-        double angle = getMarkerAngle(shape.screenToLocal(screenX, screenY));
+        double angle = getMarkerAngle(ScreenTransform.of(shape).screenToLocal(screenX, screenY));
         return new Point2D(getX(angle), getY(angle));
     }
 
@@ -21,66 +21,132 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.github.jonestimd.vgeditor.svg.AttributeParser;
+import io.github.jonestimd.vgeditor.svg.PaintRegistry;
 import javafx.scene.Group;
-import javafx.scene.Parent;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Shape;
 import org.xml.sax.Attributes;
 
 /**
- * Default values for shapes in a {@link Group}.  Stored on the {@link Group} as the user data property.
+ * Default values for shapes in a {@link Group}.  Stored on the {@link Group} as the user data property.  The inherited
+ * presentation attributes are resolved when the group is created, so lookups don't need to walk up the scene graph.
+ * A group that doesn't override any inherited attributes shares its parent's values.
  */
 public class GroupDefaults {
-    private final Group owner;
-    private final Map<String, String> attributes = new HashMap<>();
+    /** presentation attributes that are inherited by child elements */
+    public static final List<String> INHERITED = ImmutableList.of(
+            "fill", "stroke", "stroke-width", "font-family", "font-size", "font-weight", "font-style", "visibility");
+    private static final Map<String, Integer> INDEX;
+
+    static {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+        for (int i = 0; i < INHERITED.size(); i++) {
+            builder.put(INHERITED.get(i), i);
+        }
+        INDEX = builder.build();
+    }
+
+    private static final int FILL = INHERITED.indexOf("fill");
+    private static final int STROKE = INHERITED.indexOf("stroke");
+    private static final String NONE = "none";
+    private static final String[] NO_VALUES = new String[INHERITED.size()];
+
+    /** inherited attribute values, indexed by position in {@link #INHERITED} (may be shared with the parent group) */
+    private final String[] values;
     private Paint stroke;
     private Paint fill;
+    private final PaintRegistry paints;
+    /** true if the stroke references a gradient that hadn't been defined when the group was created */
+    private final boolean strokeForward;
+    /** true if the fill references a gradient that hadn't been defined when the group was created */
+    private final boolean fillForward;
+
+    /**
+     * @param parent the defaults of the parent group or {@code null} for a top level group
+     * @param attributes the attributes of the group element
+     */
+    public GroupDefaults(GroupDefaults parent, Attributes attributes) {
+        this(parent, attributes, parent == null ? null : parent.paints);
+    }
 
-    public GroupDefaults(Group owner, Attributes attributes) {
-        this.owner = owner;
+    /**
+     * @param parent the defaults of the parent group or {@code null} for a top level group
+     * @param attributes the attributes of the group element
+     * @param paints the gradients that can be referenced by the group and its children (may be {@code null})
+     */
+    public GroupDefaults(GroupDefaults parent, Attributes attributes, PaintRegistry paints) {
+        String[] inherited = parent == null ? NO_VALUES : parent.values;
+        String[] values = inherited;
         for (int i = 0; i < attributes.getLength(); i++) {
-            this.attributes.put(attributes.getLocalName(i), attributes.getValue(i));
+            Integer index = INDEX.get(attributes.getLocalName(i));
+            if (index != null) {
+                if (values == inherited) values = Arrays.copyOf(inherited, inherited.length);
+                values[index] = attributes.getValue(i);
+            }
         }
-        this.stroke = AttributeParser.getPaint(attributes, "stroke").orElse(null);
-        this.fill = AttributeParser.getPaint(attributes, "fill").orElse(null);
+        this.values = values;
+        this.paints = paints;
+        this.stroke = getPaint(attributes, "stroke", parent == null ? null : parent.stroke);
+        this.fill = getPaint(attributes, "fill", parent == null ? null : parent.fill);
+        this.strokeForward = paints != null && paints.isForwardReference(values[STROKE]);
+        this.fillForward = paints != null && paints.isForwardReference(values[FILL]);
+        if (strokeForward) paints.whenDefined(values[STROKE], paint -> this.stroke = paint);
+        if (fillForward) paints.whenDefined(values[FILL], paint -> this.fill = paint);
     }
 
-    private <T> T getValue(Function<GroupDefaults, T> getter) {
-        Parent node = this.owner;
-        T value = getter.apply(this);
-        while (value == null && node != null) {
-            node = node.getParent();
-            value = getter.apply((GroupDefaults) node.getUserData());
-        }
-        return value;
+    /**
+     * @return the defaults stored on {@code group} or {@code null} if it doesn't have any
+     */
+    public static GroupDefaults of(Group group) {
+        return group != null && group.getUserData() instanceof GroupDefaults ? (GroupDefaults) group.getUserData() : null;
+    }
+
+    private Paint getPaint(Attributes attributes, String name, Paint inherited) {
+        String value = attributes.getValue(name);
+        if (value == null) return inherited;
+        if (NONE.equals(value)) return null;
+        return paints == null ? AttributeParser.parsePaint(value) : paints.getPaint(value);
+    }
+
+    /**
+     * @return the gradients that can be referenced by shapes in the group or {@code null} if there aren't any
+     */
+    public PaintRegistry getPaints() {
+        return paints;
     }
 
+    /**
+     * @return the inherited value of a presentation attribute or {@code null} if it is not set or not inherited
+     */
     public String getString(String name) {
-        return getValue(groupDefaults -> groupDefaults.attributes.get(name));
+        Integer index = INDEX.get(name);
+        return index == null ? null : values[index];
     }
 
     public void setStroke(Shape shape) {
-        Paint stroke = getValue(groupDefaults -> groupDefaults.stroke);
-        if (stroke != null) shape.setStroke(stroke);
+        if (values[STROKE] != null) shape.setStroke(stroke);
+        if (strokeForward) paints.whenDefined(values[STROKE], shape::setStroke);
     }
 
     public void setStroke(ShapeModel model) {
-        Paint stroke = getValue(groupDefaults -> groupDefaults.stroke);
-        if (stroke != null) model.setStroke(stroke);
+        if (values[STROKE] != null) model.setStroke(stroke);
+        if (strokeForward) paints.whenDefined(values[STROKE], model::setStroke);
     }
 
     public void setFill(Shape shape) {
-        Paint fill = getValue(groupDefaults -> groupDefaults.fill);
-        if (fill != null) shape.setFill(fill);
+        if (values[FILL] != null) shape.setFill(fill);
+        if (fillForward) paints.whenDefined(values[FILL], shape::setFill);
     }
 
     public void setFill(ShapeModel model) {
-        Paint fill = getValue(groupDefaults -> groupDefaults.fill);
-        if (fill != null) model.setFill(fill);
+        if (values[FILL] != null) model.setFill(fill);
+        if (fillForward) paints.whenDefined(values[FILL], model::setFill);
     }
 }
@@ -23,8 +23,13 @@ package io.github.jonestimd.vgeditor.scene.model;
 
 import java.util.List;
 
+import io.github.jonestimd.vgeditor.scene.ImageStore;
 import io.github.jonestimd.vgeditor.scene.NodeAnchor;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.control.ToolPaneLoader;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.Parent;
@@ -36,9 +41,30 @@ import javafx.scene.transform.Transform;
 public class ImageModel implements NodeModel, AnchoredModel {
     private ImageView imageView;
     private NodeAnchor anchor = NodeAnchor.TOP_LEFT;
+    private final ImageStore store;
+    private final ImageStore.Source source;
+    /** the image acquired from the store */
+    private Image acquired;
+    private int requests;
+    private double requestedWidth = Double.NaN;
+    private double requestedHeight = Double.NaN;
+    private double requestedScale = Double.NaN;
 
     public ImageModel(Group group, Image image) {
+        this(group, image, null, null);
+    }
+
+    /**
+     * Create a model whose image is loaded from {@code store} by {@link #load()} and {@link #updateResolution(Bounds)}.
+     */
+    public ImageModel(Group group, ImageStore store, ImageStore.Source source) {
+        this(group, null, store, source);
+    }
+
+    private ImageModel(Group group, Image image, ImageStore store, ImageStore.Source source) {
         this.imageView = new ImageView(image);
+        this.store = store;
+        this.source = source;
         imageView.setUserData(this);
         group.getChildren().add(imageView);
     }
@@ -47,6 +73,89 @@ public class ImageModel implements NodeModel, AnchoredModel {
         return imageView;
     }
 
+    /**
+     * @return true if the image is loaded from an {@link ImageStore}
+     */
+    public boolean isStoreBacked() {
+        return source != null;
+    }
+
+    /**
+     * Load the image at the resolution needed for its size in local coordinates.
+     */
+    public void load() {
+        if (source != null) request(getWidth(), getHeight(), 1);
+    }
+
+    /**
+     * Load the image at the resolution needed for its size in the scene or, if it is outside of the visible area,
+     * release the decoded image so that the store can evict it.
+     * @param visibleArea the visible part of the scene
+     */
+    public void updateResolution(Bounds visibleArea) {
+        updateResolution(visibleArea, 1);
+    }
+
+    /**
+     * Load the image at the resolution needed for its size on a display with the given output scale or, if it is
+     * outside of the visible area, release the decoded image so that the store can evict it.
+     * @param visibleArea the visible part of the scene
+     * @param outputScale the number of display pixels per scene unit
+     */
+    public void updateResolution(Bounds visibleArea, double outputScale) {
+        if (source != null) {
+            Bounds bounds = imageView.localToScene(getDisplayBounds());
+            if (bounds.getWidth() == 0 || bounds.intersects(visibleArea)) request(bounds.getWidth(), bounds.getHeight(), outputScale);
+            else releaseImage();
+        }
+    }
+
+    private Bounds getDisplayBounds() {
+        Dimension2D size = store.getSize(source);
+        double width = getWidth() > 0 ? getWidth() : size == null ? 0 : size.getWidth();
+        double height = getHeight() > 0 ? getHeight() : size == null ? 0 : size.getHeight();
+        return new BoundingBox(getX(), getY(), width, height);
+    }
+
+    private void request(double width, double height, double outputScale) {
+        if (width != requestedWidth || height != requestedHeight || outputScale != requestedScale) {
+            int request = ++requests;
+            requestedWidth = width;
+            requestedHeight = height;
+            requestedScale = outputScale;
+            store.acquire(source, width, height, outputScale, image -> {
+                if (request != requests) {
+                    if (image != null) store.release(image);
+                }
+                else setImage(image);
+            });
+        }
+    }
+
+    private void setImage(Image image) {
+        Dimension2D size = store.getSize(source);
+        if (size != null && getWidth() <= 0 && getHeight() <= 0) {
+            setWidth(size.getWidth());
+            setHeight(size.getHeight());
+        }
+        if (acquired != null) store.release(acquired);
+        acquired = image;
+        imageView.setImage(image);
+    }
+
+    /**
+     * Release the decoded image, so that the store can evict it.
+     */
+    public void releaseImage() {
+        requests++;
+        requestedWidth = requestedHeight = requestedScale = Double.NaN;
+        if (acquired != null) {
+            store.release(acquired);
+            acquired = null;
+            imageView.setImage(null);
+        }
+    }
+
     @Override
     public void edit(ToolPaneLoader toolPaneLoader) {
         throw new UnsupportedOperationException();
@@ -54,6 +163,7 @@ public class ImageModel implements NodeModel, AnchoredModel {
 
     @Override
     public void remove() {
+        if (source != null) releaseImage();
         Parent parent = imageView.getParent();
         if (parent instanceof Pane) ((Pane) parent).getChildren().remove(imageView);
         else if (parent instanceof Group) ((Group) parent).getChildren().remove(imageView);
@@ -82,7 +192,7 @@ public class ImageModel implements NodeModel, AnchoredModel {
 
     @Override
     public NodeAnchor getResizeAnchor(Point2D screenPoint) {
-        return NodeAnchor.forResize(imageView.screenToLocal(screenPoint), getX(), getY(), getWidth(), getHeight());
+        return NodeAnchor.forResize(ScreenTransform.of(imageView).screenToLocal(screenPoint), getX(), getY(), getWidth(), getHeight());
     }
 
     @Override
@@ -21,20 +21,32 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.model;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 import io.github.jonestimd.vgeditor.scene.Geometry;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.model.path.PathSegment;
 import io.github.jonestimd.vgeditor.scene.model.path.PathVisitor;
+import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
 import javafx.scene.shape.PathElement;
+import javafx.scene.shape.QuadCurveTo;
 
 import static io.github.jonestimd.vgeditor.scene.control.selection.SelectionController.*;
 
 public class PathModel extends ShapeModel<Path> {
-    private final PathVisitor pathVisitor;
+    private PathVisitor pathVisitor;
+    /** true if the path elements and the visitor are shared with other paths */
+    private boolean shared;
 
     public PathModel(Group group, PathElement... elements) {
         this(group, new Path(elements));
@@ -42,24 +54,97 @@ public class PathModel extends ShapeModel<Path> {
 
     public PathModel(Group group, Path shape) {
         super(group, "", shape);
-        pathVisitor = new PathVisitor(shape);
+        this.pathVisitor = new PathVisitor(shape);
+    }
+
+    /**
+     * Create an instance of a shared path.  The instance displays the shared elements and is hit-tested using the
+     * shared visitor until it is edited.
+     * @param elements the shared path elements
+     * @param pathVisitor the visitor for the shared path elements
+     */
+    public PathModel(Group group, List<PathElement> elements, PathVisitor pathVisitor) {
+        super(group, "", new Path(elements));
+        this.pathVisitor = pathVisitor;
+        this.shared = true;
+    }
+
+    /**
+     * Get the path elements for editing.  If the elements are shared with other paths, then they are replaced with
+     * copies, so that editing them doesn't change the other paths.
+     */
+    public ObservableList<PathElement> getElements() {
+        if (shared) {
+            List<PathElement> copies = new ArrayList<>(shape.getElements().size());
+            for (PathElement element : shape.getElements()) {
+                copies.add(copy(element));
+            }
+            shape.getElements().setAll(copies);
+            pathVisitor = new PathVisitor(shape);
+            shared = false;
+        }
+        return shape.getElements();
+    }
+
+    /**
+     * @return true if the path elements are shared with other paths
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    private static PathElement copy(PathElement element) {
+        PathElement copy;
+        if (element instanceof MoveTo) {
+            MoveTo moveTo = (MoveTo) element;
+            copy = new MoveTo(moveTo.getX(), moveTo.getY());
+        }
+        else if (element instanceof LineTo) {
+            LineTo lineTo = (LineTo) element;
+            copy = new LineTo(lineTo.getX(), lineTo.getY());
+        }
+        else if (element instanceof QuadCurveTo) {
+            QuadCurveTo curveTo = (QuadCurveTo) element;
+            copy = new QuadCurveTo(curveTo.getControlX(), curveTo.getControlY(), curveTo.getX(), curveTo.getY());
+        }
+        else if (element instanceof CubicCurveTo) {
+            CubicCurveTo curveTo = (CubicCurveTo) element;
+            copy = new CubicCurveTo(curveTo.getControlX1(), curveTo.getControlY1(), curveTo.getControlX2(),
+                    curveTo.getControlY2(), curveTo.getX(), curveTo.getY());
+        }
+        else if (element instanceof ArcTo) {
+            ArcTo arcTo = (ArcTo) element;
+            copy = new ArcTo(arcTo.getRadiusX(), arcTo.getRadiusY(), arcTo.getXAxisRotation(), arcTo.getX(), arcTo.getY(),
+                    arcTo.isLargeArcFlag(), arcTo.isSweepFlag());
+        }
+        else if (element instanceof ClosePath) copy = new ClosePath();
+        else throw new IllegalArgumentException("Unsupported path element: " + element.getClass().getName());
+        copy.setAbsolute(element.isAbsolute());
+        return copy;
     }
 
     @Override
     protected boolean isInSelectionRange(Point2D localCursor) {
-        return pathVisitor.some(cursorPredicate(localCursor));
+        return isInSelectionRange(pathVisitor, localCursor);
     }
 
     @Override
     public Point2D getMarkerLocation(double screenX, double screenY) {
-        Point2D cursor = shape.screenToLocal(screenX, screenY);
+        return getMarkerLocation(pathVisitor, ScreenTransform.of(shape).screenToLocal(screenX, screenY));
+    }
+
+    protected static boolean isInSelectionRange(PathVisitor pathVisitor, Point2D localCursor) {
+        return pathVisitor.some(cursorPredicate(localCursor));
+    }
+
+    protected static Point2D getMarkerLocation(PathVisitor pathVisitor, Point2D cursor) {
         PathSegment<?> segment = pathVisitor.find(cursorPredicate(cursor)).orElseThrow(IllegalStateException::new);
         if (Geometry.distanceSquared(cursor, segment.getStart()) <= HIGHLIGHT_OFFSET_SQUARED) return segment.getStart();
         if (Geometry.distanceSquared(cursor, segment.getEnd()) <= HIGHLIGHT_OFFSET_SQUARED) return segment.getEnd();
         return segment.getMidpoint();
     }
 
-    private Predicate<PathSegment<?>> cursorPredicate(Point2D cursor) {
+    private static Predicate<PathSegment<?>> cursorPredicate(Point2D cursor) {
         return segment -> segment.isInSelectionRange(cursor);
     }
 }
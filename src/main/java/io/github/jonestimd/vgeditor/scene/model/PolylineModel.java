@@ -24,6 +24,7 @@ package io.github.jonestimd.vgeditor.scene.model;
 import java.util.Optional;
 
 import io.github.jonestimd.vgeditor.scene.Geometry;
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
@@ -48,7 +49,7 @@ public class PolylineModel extends ShapeModel<Polyline> {
 
     @Override
     public Point2D getMarkerLocation(double screenX, double screenY) {
-        Point2D cursor = shape.screenToLocal(screenX, screenY);
+        Point2D cursor = ScreenTransform.of(shape).screenToLocal(screenX, screenY);
         return findSegment(cursor).map(i -> {
             ObservableList<Double> points = shape.getPoints();
             Point2D start = new Point2D(points.get(i-2), points.get(i-1));
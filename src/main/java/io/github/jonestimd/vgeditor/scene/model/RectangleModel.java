@@ -21,6 +21,7 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.model;
 
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.control.selection.SelectionController;
 import javafx.geometry.Point2D;
 import javafx.scene.Group;
@@ -112,7 +113,7 @@ public class RectangleModel extends AnchoredShapeModel<Rectangle> implements Loc
 
     public Point2D getMarkerLocation(double screenX, double screenY) {
         double x = shape.getX(), y = shape.getY();
-        Point2D cursor = shape.screenToLocal(screenX, screenY).subtract(x, y);
+        Point2D cursor = ScreenTransform.of(shape).screenToLocal(screenX, screenY).subtract(x, y);
         return new Point2D(x+selectEdge(cursor.getX(), shape.getWidth()), y+selectEdge(cursor.getY(), shape.getHeight()));
     }
 
@@ -23,6 +23,7 @@ package io.github.jonestimd.vgeditor.scene.model;
 
 import java.util.List;
 
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
 import io.github.jonestimd.vgeditor.scene.control.NodeController;
 import io.github.jonestimd.vgeditor.scene.control.ToolPaneLoader;
 import javafx.geometry.Point2D;
@@ -115,7 +116,7 @@ public abstract class ShapeModel<T extends Shape> implements NodeModel {
 
     @Override
     public boolean isInSelectionRange(double screenX, double screenY) {
-        Point2D cursor = shape.screenToLocal(screenX, screenY);
+        Point2D cursor = ScreenTransform.of(shape).screenToLocal(screenX, screenY);
         return shape.intersects(cursor.getX()-HIGHLIGHT_OFFSET, cursor.getY()-HIGHLIGHT_OFFSET, HIGHLIGHT_SIZE, HIGHLIGHT_SIZE)
                 && isInSelectionRange(cursor);
     }
@@ -0,0 +1,103 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.model;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.github.jonestimd.vgeditor.scene.ScreenTransform;
+import io.github.jonestimd.vgeditor.scene.model.path.PathVisitor;
+import javafx.geometry.Point2D;
+import javafx.scene.Group;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.SVGPath;
+
+/**
+ * Model for a path that is displayed using an {@link SVGPath}.  The path data is only converted to path elements when
+ * the path is first hit-tested, so that paths that are never selected don't pay for the conversion.
+ */
+public class SvgPathModel extends ShapeModel<SVGPath> {
+    private final Function<String, PathVisitor> visitorFactory;
+    private PathVisitor pathVisitor;
+    private String parsedContent;
+
+    /**
+     * @param content the SVG path data
+     * @param pathParser converts the path data to a {@link Path}
+     */
+    public SvgPathModel(Group group, String content, Function<String, Path> pathParser) {
+        super(group, "", new SVGPath());
+        this.visitorFactory = pathParser.andThen(PathVisitor::new);
+        shape.setContent(content);
+    }
+
+    /**
+     * @param shape a path whose content has been set (e.g. one that was created and measured on another thread)
+     * @param pathParser converts the path data to a {@link Path}
+     */
+    public SvgPathModel(Group group, SVGPath shape, Function<String, Path> pathParser) {
+        super(group, "", shape);
+        this.visitorFactory = pathParser.andThen(PathVisitor::new);
+    }
+
+    /**
+     * Create an instance of a shared path.  The instance is hit-tested using the shared visitor until its path data is
+     * changed.
+     * @param content the SVG path data
+     * @param pathParser converts changed path data to a {@link Path}
+     * @param sharedVisitor supplies the visitor for the shared path
+     */
+    public SvgPathModel(Group group, String content, Function<String, Path> pathParser, Supplier<PathVisitor> sharedVisitor) {
+        super(group, "", new SVGPath());
+        this.visitorFactory = d -> d.equals(content) ? sharedVisitor.get() : pathParser.andThen(PathVisitor::new).apply(d);
+        shape.setContent(content);
+    }
+
+    public String getContent() {
+        return shape.getContent();
+    }
+
+    /**
+     * @return true if the path data has been converted to path elements
+     */
+    public boolean isMaterialized() {
+        return pathVisitor != null;
+    }
+
+    private PathVisitor getPathVisitor() {
+        if (pathVisitor == null || !shape.getContent().equals(parsedContent)) {
+            parsedContent = shape.getContent();
+            pathVisitor = visitorFactory.apply(parsedContent);
+        }
+        return pathVisitor;
+    }
+
+    @Override
+    protected boolean isInSelectionRange(Point2D localCursor) {
+        return PathModel.isInSelectionRange(getPathVisitor(), localCursor);
+    }
+
+    @Override
+    public Point2D getMarkerLocation(double screenX, double screenY) {
+        return PathModel.getMarkerLocation(getPathVisitor(), ScreenTransform.of(shape).screenToLocal(screenX, screenY));
+    }
+}
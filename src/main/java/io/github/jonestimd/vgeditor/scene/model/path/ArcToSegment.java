@@ -75,6 +75,13 @@ public class ArcToSegment extends PathSegment<ArcTo> {
 
         double midAngle = (this.angleStart+this.angleEnd)/2;
         midpoint = rotate(rx*Math.cos(midAngle), ry*Math.sin(midAngle), phi).add(center);
+
+        // include the whole ellipse
+        double cos = Math.cos(phi), sin = Math.sin(phi);
+        double halfWidth = Math.sqrt(square(rx*cos)+square(ry*sin));
+        double halfHeight = Math.sqrt(square(rx*sin)+square(ry*cos));
+        includeInBounds(center.getX()-halfWidth, center.getY()-halfHeight);
+        includeInBounds(center.getX()+halfWidth, center.getY()+halfHeight);
     }
 
     /**
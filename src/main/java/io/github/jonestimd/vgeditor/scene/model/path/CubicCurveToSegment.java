@@ -28,7 +28,14 @@ import javafx.scene.shape.CubicCurveTo;
 
 public class CubicCurveToSegment extends BezierPathSegment<CubicCurveTo> {
     public CubicCurveToSegment(Point2D start, CubicCurveTo curveTo) {
-        super(start, curveTo, new Point2D(curveTo.getX(), curveTo.getY()), new BezierFunction(start, curveTo));
+        this(start, curveTo, new BezierFunction(start, curveTo));
+    }
+
+    private CubicCurveToSegment(Point2D start, CubicCurveTo curveTo, BezierFunction bezierFunction) {
+        super(start, curveTo, new Point2D(curveTo.getX(), curveTo.getY()), bezierFunction);
+        // the curve is inside the convex hull of its control points
+        includeInBounds(bezierFunction.c1x, bezierFunction.c1y);
+        includeInBounds(bezierFunction.c2x, bezierFunction.c2y);
     }
 
     private static class BezierFunction implements DoubleFunction<Point2D> {
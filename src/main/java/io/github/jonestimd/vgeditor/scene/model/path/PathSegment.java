@@ -22,6 +22,8 @@
 package io.github.jonestimd.vgeditor.scene.model.path;
 
 import io.github.jonestimd.vgeditor.scene.control.selection.SelectionController;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.shape.ArcTo;
 import javafx.scene.shape.ClosePath;
@@ -40,11 +42,27 @@ public abstract class PathSegment<T extends PathElement> {
     protected final Point2D start;
     protected final Point2D end;
     protected final T element;
+    /** bounding box of the segment */
+    private double minX, minY, maxX, maxY;
 
     protected PathSegment(Point2D start, T element, Point2D end) {
         this.start = start;
         this.element = element;
         this.end = element.isAbsolute() ? end : end.add(start);
+        this.minX = Math.min(start.getX(), this.end.getX());
+        this.minY = Math.min(start.getY(), this.end.getY());
+        this.maxX = Math.max(start.getX(), this.end.getX());
+        this.maxY = Math.max(start.getY(), this.end.getY());
+    }
+
+    /**
+     * Expand the bounding box to include a point.  Used by subclasses for points that control the shape of the segment.
+     */
+    protected void includeInBounds(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
     }
 
     public Point2D getStart() {
@@ -64,13 +82,30 @@ public abstract class PathSegment<T extends PathElement> {
      */
     public abstract Point2D getMidpoint();
 
+    /**
+     * @return a box that contains the segment
+     */
+    public Bounds getBounds() {
+        return new BoundingBox(minX, minY, maxX-minX, maxY-minY);
+    }
+
+    /**
+     * Check if a point is within a distance of the segment's bounding box.  Used to skip the distance calculation for
+     * segments that are not near the point.
+     */
+    public boolean isNear(Point2D point, double distance) {
+        return point.getX() >= minX-distance && point.getX() <= maxX+distance
+                && point.getY() >= minY-distance && point.getY() <= maxY+distance;
+    }
+
     /**
      * Get the squared distance from a point to the path element.  Used to check if the path is within the highlighting range of the cursor.
      */
     public abstract double getDistanceSquared(Point2D point);
 
     public boolean isInSelectionRange(Point2D cursor) {
-        return getDistanceSquared(cursor) <= SelectionController.HIGHLIGHT_OFFSET_SQUARED;
+        return isNear(cursor, SelectionController.HIGHLIGHT_OFFSET)
+                && getDistanceSquared(cursor) <= SelectionController.HIGHLIGHT_OFFSET_SQUARED;
     }
 
     /**
@@ -21,23 +21,45 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.model.path;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
 
+import com.google.common.collect.ImmutableList;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Point2D;
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.HLineTo;
+import javafx.scene.shape.LineTo;
 import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
 import javafx.scene.shape.PathElement;
+import javafx.scene.shape.QuadCurveTo;
+import javafx.scene.shape.VLineTo;
 
+/**
+ * Visits the segments of a path.  The segments are cached in an array that is aligned with the path's elements.  A
+ * change to an element or to the element list only discards the cached segments from the changed element to the end
+ * of the path.
+ */
 public class PathVisitor {
     private final Path path;
-    private final Map<PathElement, PathSegment<?>> segmentMap = new HashMap<>();
+    /** segments for the path elements, the first element doesn't have a segment */
+    private PathSegment<?>[] segments = new PathSegment<?>[0];
+    /** the number of leading elements that have current segments */
+    private int validCount = 1;
+    private final ChangeListener<Object> elementListener = (observable, oldValue, newValue) ->
+            onElementChanged((PathElement) ((ReadOnlyProperty<?>) observable).getBean());
 
     public PathVisitor(Path path) {
         this.path = path;
+        path.getElements().forEach(this::addListener);
+        path.getElements().addListener(this::onElementsChanged);
     }
 
     /**
@@ -48,17 +70,18 @@ public class PathVisitor {
     }
 
     public Optional<PathSegment<?>> find(Predicate<PathSegment<?>> predicate) {
-        final Iterator<PathElement> iterator = path.getElements().iterator();
-        if (iterator.hasNext()) {
-            PathElement first = iterator.next();
+        final List<PathElement> elements = path.getElements();
+        if (!elements.isEmpty()) {
+            PathElement first = elements.get(0);
             if (first instanceof MoveTo) {
+                if (segments.length < elements.size()) segments = Arrays.copyOf(segments, elements.size());
                 Point2D start = getPoint((MoveTo) first), previous = start;
-                while (iterator.hasNext()) {
-                    PathElement element = iterator.next();
-                    PathSegment<?> segment = segmentMap.get(element);
-                    if (segment == null) {
-                        segment = PathSegment.of(previous, element, start);
-                        segmentMap.put(element, segment);
+                for (int i = 1; i < elements.size(); i++) {
+                    PathSegment<?> segment = segments[i];
+                    if (i >= validCount) {
+                        segment = PathSegment.of(previous, elements.get(i), start);
+                        segments[i] = segment;
+                        validCount = i+1;
                     }
                     if (predicate.test(segment)) return Optional.of(segment);
                     previous = segment.getEnd();
@@ -70,6 +93,76 @@ public class PathVisitor {
         return Optional.empty();
     }
 
+    /**
+     * Discard the segments starting at an element.
+     */
+    private void invalidate(int index) {
+        validCount = Math.min(validCount, Math.max(index, 1));
+    }
+
+    private void onElementChanged(PathElement element) {
+        int index = path.getElements().indexOf(element);
+        if (index >= 0 && index < validCount) invalidate(index);
+    }
+
+    private void onElementsChanged(ListChangeListener.Change<? extends PathElement> change) {
+        while (change.next()) {
+            change.getRemoved().forEach(this::removeListener);
+            change.getAddedSubList().forEach(this::addListener);
+            invalidate(change.getFrom());
+        }
+        int size = path.getElements().size();
+        if (segments.length > size) Arrays.fill(segments, size, segments.length, null);
+    }
+
+    private void addListener(PathElement element) {
+        getProperties(element).forEach(property -> property.addListener(elementListener));
+    }
+
+    private void removeListener(PathElement element) {
+        getProperties(element).forEach(property -> property.removeListener(elementListener));
+    }
+
+    /**
+     * @return the properties that determine the shape of the element
+     */
+    private static List<ObservableValue<?>> getProperties(PathElement element) {
+        if (element instanceof MoveTo) {
+            MoveTo moveTo = (MoveTo) element;
+            return ImmutableList.of(moveTo.absoluteProperty(), moveTo.xProperty(), moveTo.yProperty());
+        }
+        if (element instanceof LineTo) {
+            LineTo lineTo = (LineTo) element;
+            return ImmutableList.of(lineTo.absoluteProperty(), lineTo.xProperty(), lineTo.yProperty());
+        }
+        if (element instanceof HLineTo) {
+            HLineTo lineTo = (HLineTo) element;
+            return ImmutableList.of(lineTo.absoluteProperty(), lineTo.xProperty());
+        }
+        if (element instanceof VLineTo) {
+            VLineTo lineTo = (VLineTo) element;
+            return ImmutableList.of(lineTo.absoluteProperty(), lineTo.yProperty());
+        }
+        if (element instanceof QuadCurveTo) {
+            QuadCurveTo curveTo = (QuadCurveTo) element;
+            return ImmutableList.of(curveTo.absoluteProperty(), curveTo.xProperty(), curveTo.yProperty(),
+                    curveTo.controlXProperty(), curveTo.controlYProperty());
+        }
+        if (element instanceof CubicCurveTo) {
+            CubicCurveTo curveTo = (CubicCurveTo) element;
+            return ImmutableList.of(curveTo.absoluteProperty(), curveTo.xProperty(), curveTo.yProperty(),
+                    curveTo.controlX1Property(), curveTo.controlY1Property(),
+                    curveTo.controlX2Property(), curveTo.controlY2Property());
+        }
+        if (element instanceof ArcTo) {
+            ArcTo arcTo = (ArcTo) element;
+            return ImmutableList.of(arcTo.absoluteProperty(), arcTo.xProperty(), arcTo.yProperty(),
+                    arcTo.radiusXProperty(), arcTo.radiusYProperty(), arcTo.XAxisRotationProperty(),
+                    arcTo.largeArcFlagProperty(), arcTo.sweepFlagProperty());
+        }
+        return ImmutableList.of(element.absoluteProperty());
+    }
+
     private static Point2D getPoint(MoveTo moveTo) {
         return new Point2D(moveTo.getX(), moveTo.getY());
     }
@@ -28,7 +28,13 @@ import javafx.scene.shape.QuadCurveTo;
 
 public class QuadCurveToSegment extends BezierPathSegment<QuadCurveTo> {
     public QuadCurveToSegment(Point2D start, QuadCurveTo curveTo) {
-        super(start, curveTo, new Point2D(curveTo.getX(), curveTo.getY()), new BezierFunction(start, curveTo));
+        this(start, curveTo, new BezierFunction(start, curveTo));
+    }
+
+    private QuadCurveToSegment(Point2D start, QuadCurveTo curveTo, BezierFunction bezierFunction) {
+        super(start, curveTo, new Point2D(curveTo.getX(), curveTo.getY()), bezierFunction);
+        // the curve is inside the convex hull of its control points
+        includeInBounds(bezierFunction.cx, bezierFunction.cy);
     }
 
     private static class BezierFunction implements DoubleFunction<Point2D> {
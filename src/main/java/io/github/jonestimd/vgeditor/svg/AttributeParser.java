@@ -24,12 +24,39 @@ package io.github.jonestimd.vgeditor.svg;
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import io.github.jonestimd.vgeditor.collection.LruCache;
 import javafx.scene.paint.Paint;
 import org.xml.sax.Attributes;
 
 public class AttributeParser {
+    private static final int PAINT_CACHE_SIZE = 256;
+    /** {@link Paint} is immutable, so identical values can share an instance. */
+    private static final LruCache<String, Paint> PAINT_CACHE = new LruCache<>(PAINT_CACHE_SIZE);
+
     public static Optional<Paint> getPaint(Attributes attributes, String name) {
-        return Optional.ofNullable(attributes.getValue(name)).map(Paint::valueOf);
+        return Optional.ofNullable(attributes.getValue(name)).map(AttributeParser::parsePaint);
+    }
+
+    /**
+     * Get the shared {@link Paint} for a color or gradient value.
+     * @throws IllegalArgumentException if {@code value} is not a valid paint
+     */
+    public static Paint parsePaint(String value) {
+        synchronized (PAINT_CACHE) {
+            return PAINT_CACHE.get(value, Paint::valueOf);
+        }
+    }
+
+    public static long getPaintCacheHits() {
+        synchronized (PAINT_CACHE) {
+            return PAINT_CACHE.getHits();
+        }
+    }
+
+    public static long getPaintCacheMisses() {
+        synchronized (PAINT_CACHE) {
+            return PAINT_CACHE.getMisses();
+        }
     }
 
     /**
@@ -40,10 +67,33 @@ public class AttributeParser {
      * @param setter Shape paint attribute setter
      */
     public static void setPaint(Attributes attributes, String name, Consumer<Paint> setter) {
-        String fill = attributes.getValue(name);
+        setPaint(attributes, name, null, setter);
+    }
+
+    /**
+     * Set or clear a paint attribute on a shape.  If the attribute value is {@code none} then {@code setter}
+     * will be called with {@code null}.
+     * @param attributes SVG node attributes
+     * @param name name of the attribute specifying the paint
+     * @param paints the gradients of the document (may be {@code null})
+     * @param setter Shape paint attribute setter
+     */
+    public static void setPaint(Attributes attributes, String name, PaintRegistry paints, Consumer<Paint> setter) {
+        setPaint(attributes.getValue(name), paints, setter);
+    }
+
+    /**
+     * Set or clear a paint attribute on a shape.  A reference to a gradient that hasn't been defined yet is set again
+     * when the gradient is defined (see {@link PaintRegistry#setPaint}).
+     * @param fill the attribute value (ignored if {@code null})
+     * @param paints the gradients of the document (may be {@code null})
+     * @param setter Shape paint attribute setter
+     */
+    public static void setPaint(String fill, PaintRegistry paints, Consumer<Paint> setter) {
         if (fill != null) {
             if (fill.equals("none")) setter.accept(null);
-            else setter.accept(Paint.valueOf(fill));
+            else if (paints == null) setter.accept(parsePaint(fill));
+            else paints.setPaint(fill, setter);
         }
     }
 }
@@ -0,0 +1,78 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SVG elements that are handled by {@link SvgParser}.  Looking up the kind of an element is a single hash lookup,
+ * so that the parser can dispatch each element with a {@code switch}.
+ */
+enum ElementKind {
+    SVG("svg"), G("g"), SYMBOL("symbol"), DEFS("defs"), USE("use"), STYLE("style"),
+    LINEAR_GRADIENT("linearGradient"), RADIAL_GRADIENT("radialGradient"),
+    LINE("line"), CIRCLE("circle"), ELLIPSE("ellipse"), RECT("rect"), PATH("path"), POLYGON("polygon"),
+    POLYLINE("polyline"), IMAGE("image"), TEXT("text"), TSPAN("tspan"),
+    /** an element that is ignored */
+    OTHER(null);
+
+    private static final Map<String, ElementKind> BY_NAME = new HashMap<>();
+
+    static {
+        for (ElementKind kind : values()) {
+            if (kind.elementName != null) BY_NAME.put(kind.elementName, kind);
+        }
+    }
+
+    private final String elementName;
+
+    ElementKind(String elementName) {
+        this.elementName = elementName;
+    }
+
+    public String getElementName() {
+        return elementName;
+    }
+
+    public static ElementKind of(String elementName) {
+        return BY_NAME.getOrDefault(elementName, OTHER);
+    }
+
+    /**
+     * @return true if the element is displayed as a {@link javafx.scene.Group}
+     */
+    public boolean isGroup() {
+        return this == SVG || this == G || this == SYMBOL;
+    }
+
+    /**
+     * @return true if the element's content is recorded as a template instead of being displayed
+     */
+    public boolean isRecorded() {
+        return this == DEFS || this == SYMBOL || isGradient();
+    }
+
+    public boolean isGradient() {
+        return this == LINEAR_GRADIENT || this == RADIAL_GRADIENT;
+    }
+}
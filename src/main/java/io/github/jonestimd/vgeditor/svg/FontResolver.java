@@ -0,0 +1,113 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+import static io.github.jonestimd.vgeditor.svg.ShapeFactory.*;
+
+/**
+ * Resolves the fonts for SVG text elements.  The installed font families are only enumerated once and each combination
+ * of family, weight and size is only resolved once per session.
+ */
+public class FontResolver {
+    private static volatile Set<String> installedFamilies;
+    /** maps the {@code font-family} attribute value to an installed family */
+    private static final Map<String, String> FAMILIES = new ConcurrentHashMap<>();
+    private static final Map<FontKey, Font> FONTS = new ConcurrentHashMap<>();
+
+    /**
+     * @param family the value of the {@code font-family} attribute
+     * @param weight the value of the {@code font-weight} attribute
+     * @param size the font size in pixels
+     */
+    public static Font getFont(String family, String weight, double size) {
+        return FONTS.computeIfAbsent(new FontKey(family, weight, size), FontResolver::createFont);
+    }
+
+    private static Font createFont(FontKey key) {
+        return Font.font(getFamily(key.family), getWeight(key.weight), key.size);
+    }
+
+    /**
+     * @param family the value of the {@code font-family} attribute, which may be a comma separated list
+     * @return the first installed family in the list or {@link ShapeFactory#DEFAULT_FONT_FAMILY}
+     */
+    public static String getFamily(String family) {
+        return FAMILIES.computeIfAbsent(family, FontResolver::findFamily);
+    }
+
+    private static String findFamily(String families) {
+        for (String family : families.split(",")) {
+            String name = family.trim();
+            if (name.length() > 1 && (name.charAt(0) == '\'' || name.charAt(0) == '"')) name = name.substring(1, name.length()-1);
+            if (getInstalledFamilies().contains(name)) return name;
+        }
+        return DEFAULT_FONT_FAMILY;
+    }
+
+    private static Set<String> getInstalledFamilies() {
+        if (installedFamilies == null) installedFamilies = new HashSet<>(Font.getFamilies());
+        return installedFamilies;
+    }
+
+    /**
+     * @param weight a weight name (e.g. {@code bold}) or a numeric weight (e.g. {@code 700})
+     */
+    public static FontWeight getWeight(String weight) {
+        double value = NumberScanner.parseDouble(weight);
+        FontWeight fontWeight = Double.isNaN(value) ? FontWeight.findByName(weight) : FontWeight.findByWeight((int) value);
+        return fontWeight == null ? FontWeight.NORMAL : fontWeight;
+    }
+
+    private static class FontKey {
+        private final String family;
+        private final String weight;
+        private final double size;
+
+        private FontKey(String family, String weight, double size) {
+            this.family = family;
+            this.weight = weight;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            FontKey that = (FontKey) obj;
+            return Double.compare(that.size, size) == 0 && family.equals(that.family) && weight.equals(that.weight);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(family, weight, size);
+        }
+    }
+}
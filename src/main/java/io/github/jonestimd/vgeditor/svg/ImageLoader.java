@@ -0,0 +1,122 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import io.github.jonestimd.vgeditor.collection.LruCache;
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+
+/**
+ * Creates the {@link ImageStore.Source}s for the images referenced by SVG {@code image} elements.  Elements with the
+ * same data or URL share a single source, so that the {@link ImageStore} decodes and caches their pixels once.  Data
+ * URIs are keyed by the hash of their payload, so that the cache key isn't a second copy of the data.  Each data
+ * source keeps the encoded payload and only decodes it while the image is being decoded.
+ */
+public class ImageLoader {
+    private static final int CACHE_SIZE = 128;
+    private static final String DATA_SCHEME = "data:";
+    private static final ImageLoader DEFAULT = new ImageLoader();
+
+    private final LruCache<String, ImageStore.Source> cache = new LruCache<>(CACHE_SIZE);
+
+    public static ImageLoader getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param href a data URI or a URL
+     * @return the shared source for {@code href}
+     */
+    public ImageStore.Source getSource(String href) {
+        if (href.regionMatches(true, 0, DATA_SCHEME, 0, DATA_SCHEME.length())) {
+            int comma = href.indexOf(',');
+            String payload = comma < 0 ? "" : href.substring(comma+1);
+            boolean base64 = comma >= 0 && href.substring(0, comma).toLowerCase().endsWith(";base64");
+            return getCached(DATA_SCHEME + hash(payload), () -> new DataSource(payload, base64));
+        }
+        return getCached(href, () -> () -> new URL(href).openStream());
+    }
+
+    private synchronized ImageStore.Source getCached(String key, Supplier<ImageStore.Source> factory) {
+        return cache.get(key, ignored -> factory.get());
+    }
+
+    /**
+     * @return the number of sources that were shared with an earlier element
+     */
+    public synchronized long getCacheHits() {
+        return cache.getHits();
+    }
+
+    private static String hash(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(payload.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Decodes the payload of a data URI each time it is opened, so that the decoded bytes are only held while the
+     * image is being decoded.
+     */
+    private static class DataSource implements ImageStore.Source {
+        private final String payload;
+        private final boolean base64;
+
+        public DataSource(String payload, boolean base64) {
+            this.payload = payload;
+            this.base64 = base64;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            try {
+                byte[] data = base64 ? Base64.getMimeDecoder().decode(payload) : percentDecode(payload);
+                return new ByteArrayInputStream(data);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Invalid data URI", ex);
+            }
+        }
+
+        private static byte[] percentDecode(String payload) throws UnsupportedEncodingException {
+            return URLDecoder.decode(payload.replace("+", "%2B"), "ISO-8859-1").getBytes(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
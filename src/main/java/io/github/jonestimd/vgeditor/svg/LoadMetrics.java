@@ -0,0 +1,285 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+
+/**
+ * Collects timings and counts while an SVG document is loaded.  The phases are timed on the threads that perform them,
+ * so the phase times can add up to more than the elapsed time when geometry is parsed in parallel.  Use
+ * {@link #DISABLED} to skip collecting metrics.
+ */
+public class LoadMetrics {
+    public enum Phase {
+        /** reading and tokenizing the XML (the parse time not spent handling elements) */
+        TOKENIZE("tokenize"),
+        /** parsing path data and point lists */
+        PATHS("paths"),
+        TRANSFORMS("transforms"),
+        /** compiling style sheets and resolving element styles */
+        STYLES("styles"),
+        /** preparing image sources and decoding images */
+        IMAGES("images"),
+        /** adding nodes to their parents */
+        ATTACH("attach"),
+        /** hashing the file and reading or writing its {@link SceneSnapshot} */
+        SNAPSHOT("snapshot");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    /** metrics that ignore all updates */
+    public static final LoadMetrics DISABLED = new LoadMetrics(null, false);
+
+    private final ImageStore imageStore;
+    private final boolean enabled;
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder handlerNanos = new LongAdder();
+    private final Map<String, LongAdder> elementCounts = new TreeMap<>();
+    private volatile boolean started;
+    private volatile long startNanos;
+    private volatile long parseStartNanos;
+    private volatile long elapsedNanos;
+    private volatile long parseNanos;
+    private volatile long bytesRead;
+    private volatile long startAllocated;
+    private volatile long allocatedBytes = -1L;
+    private volatile long peakHeapBytes = -1L;
+    private volatile long startDecodeNanos;
+    private volatile long decodeNanos;
+
+    public LoadMetrics() {
+        this(ImageStore.getDefault());
+    }
+
+    /**
+     * @param imageStore the store that decodes the document's images
+     */
+    public LoadMetrics(ImageStore imageStore) {
+        this(imageStore, true);
+    }
+
+    private LoadMetrics(ImageStore imageStore, boolean enabled) {
+        this.imageStore = imageStore;
+        this.enabled = enabled;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start the load.  Called by the loader before any other work on the document (e.g. looking up its snapshot).
+     * The parser calls this itself if the load hasn't been started.
+     */
+    public void begin() {
+        if (enabled) {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+            }
+            startAllocated = getThreadAllocatedBytes();
+            startDecodeNanos = imageStore.getDecodeNanos();
+            startNanos = System.nanoTime();
+            parseStartNanos = startNanos;
+            started = true;
+        }
+    }
+
+    /**
+     * Called by the parser before reading the document.
+     */
+    public void beginParse() {
+        if (enabled) {
+            if (!started) begin();
+            startAllocated = getThreadAllocatedBytes();
+            parseStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called by the parser after reading the document.
+     * @param bytesRead the size of the document (before decompression)
+     */
+    public void endParse(long bytesRead) {
+        if (enabled) {
+            parseNanos = System.nanoTime()-parseStartNanos;
+            this.bytesRead = bytesRead;
+            long allocated = getThreadAllocatedBytes();
+            if (allocated >= 0L && startAllocated >= 0L) allocatedBytes = allocated-startAllocated;
+            finish();
+        }
+    }
+
+    /**
+     * Update the elapsed time, the image decoding time and the peak heap usage.  Called by the parser and by anything
+     * that continues loading the document after it has been parsed (e.g. attaching the nodes to the scene).
+     */
+    public void finish() {
+        if (enabled) {
+            elapsedNanos = System.nanoTime()-startNanos;
+            decodeNanos = imageStore.getDecodeNanos()-startDecodeNanos;
+            long peak = 0L;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) peak += pool.getPeakUsage().getUsed();
+            }
+            peakHeapBytes = peak;
+        }
+    }
+
+    private static long getThreadAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * @return the start time for {@link #stop} (0 if metrics are disabled)
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Add the time since {@code start} to a phase.
+     */
+    public void stop(Phase phase, long start) {
+        if (enabled) phaseNanos[phase.ordinal()].add(System.nanoTime()-start);
+    }
+
+    /**
+     * Add the time since {@code start} to the time spent handling parser events.
+     */
+    void stopHandler(long start) {
+        if (enabled) handlerNanos.add(System.nanoTime()-start);
+    }
+
+    public void countElement(String name) {
+        if (enabled) {
+            synchronized (elementCounts) {
+                elementCounts.computeIfAbsent(name, key -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        switch (phase) {
+            case TOKENIZE: return Math.max(0L, parseNanos-handlerNanos.sum());
+            case IMAGES: return phaseNanos[phase.ordinal()].sum()+decodeNanos;
+            default: return phaseNanos[phase.ordinal()].sum();
+        }
+    }
+
+    /**
+     * @return the number of elements of each type, sorted by element name
+     */
+    public Map<String, Long> getElementCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        synchronized (elementCounts) {
+            elementCounts.forEach((name, count) -> counts.put(name, count.sum()));
+        }
+        return counts;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the rate at which the document was parsed
+     */
+    public double getBytesPerSecond() {
+        return parseNanos == 0L ? 0d : bytesRead*1e9/parseNanos;
+    }
+
+    /**
+     * @return the bytes allocated by the parsing thread while parsing or -1 if the JVM doesn't support measuring it
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the sum of the peak usage of the heap memory pools since the start of the load (-1 if not measured)
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    /**
+     * @return the metrics as a JSON object (times are in milliseconds)
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"elapsedMillis\": ").append(toMillis(elapsedNanos)).append(",\n");
+        json.append("  \"parseMillis\": ").append(toMillis(parseNanos)).append(",\n");
+        json.append("  \"bytes\": ").append(bytesRead).append(",\n");
+        json.append("  \"bytesPerSecond\": ").append(Math.round(getBytesPerSecond())).append(",\n");
+        json.append("  \"allocatedBytes\": ").append(allocatedBytes).append(",\n");
+        json.append("  \"peakHeapBytes\": ").append(peakHeapBytes).append(",\n");
+        json.append("  \"phaseMillis\": {");
+        String separator = "\n";
+        for (Phase phase : Phase.values()) {
+            json.append(separator).append("    \"").append(phase.key).append("\": ").append(toMillis(getPhaseNanos(phase)));
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"elements\": {");
+        separator = "\n";
+        for (Map.Entry<String, Long> entry : getElementCounts().entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        return json.append(separator.equals("\n") ? "}\n}" : "\n  }\n}").toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos/1e6);
+    }
+}
@@ -0,0 +1,55 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+import javafx.scene.Group;
+
+/**
+ * Parses SVG files without displaying them and prints the {@link LoadMetrics} of each file as JSON.
+ * <pre>java io.github.jonestimd.vgeditor.svg.LoadProfiler [--lazy-paths] file...</pre>
+ */
+public class LoadProfiler {
+    private static final String LAZY_PATHS = "--lazy-paths";
+
+    public static void main(String... args) throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "\n";
+        for (String arg : args) {
+            if (arg.equals(LAZY_PATHS)) ShapeFactory.setLazyPaths(true);
+            else {
+                LoadMetrics metrics = new LoadMetrics();
+                new SvgParser(node -> {}, SvgEntityResolver.CATALOG, ForkJoinPool.commonPool(), metrics).parse(new File(arg), new Group());
+                String fileJson = metrics.toJson().replace("\n", "\n  ");
+                json.append(separator).append("  {\"file\": \"").append(escape(arg)).append("\", \"metrics\": ").append(fileJson).append('}');
+                separator = ",\n";
+            }
+        }
+        System.out.println(json.append("\n]"));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
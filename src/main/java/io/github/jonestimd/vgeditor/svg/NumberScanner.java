@@ -0,0 +1,322 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.Arrays;
+
+import static java.lang.Character.isLetter;
+
+/**
+ * Reads numbers from a range of a {@link CharSequence} without creating substrings.  Accepts the SVG number grammar,
+ * including exponents and numbers that are not separated by whitespace or a comma (e.g. {@code 1.5.5} or {@code 1-2}).
+ * Numbers with up to 18 significant digits and a small exponent are assembled from a {@code long} mantissa, which gives
+ * a correctly rounded result.  Other values are passed to {@link Double#parseDouble(String)}.  In strict mode, only
+ * plain decimals are accepted (no leading {@code +}, exponent or unit).
+ * <strong>Note:</strong> This class is not thread safe.
+ * @see <a href="https://www.w3.org/TR/SVG11/paths.html#PathDataBNF">Number grammar</a>
+ */
+public class NumberScanner {
+    private static final int MAX_DIGITS = 18;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_POWER+1];
+    private static final double PX_PER_INCH = 96d;
+
+    static {
+        POWERS_OF_TEN[0] = 1d;
+        for (int i = 1; i <= MAX_EXACT_POWER; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1]*10;
+        }
+    }
+
+    private final CharSequence content;
+    private final int end;
+    private final boolean strict;
+    private int pos;
+
+    public NumberScanner(CharSequence content) {
+        this(content, 0, content.length());
+    }
+
+    /**
+     * @param content the characters to scan
+     * @param start the index of the first character to scan
+     * @param end the index after the last character to scan
+     */
+    public NumberScanner(CharSequence content, int start, int end) {
+        this(content, start, end, false);
+    }
+
+    /**
+     * @param content the characters to scan
+     * @param start the index of the first character to scan
+     * @param end the index after the last character to scan
+     * @param strict true to only accept plain decimals (e.g. {@code -1.5}) without a leading {@code +}, an exponent or
+     *        a unit
+     */
+    public NumberScanner(CharSequence content, int start, int end, boolean strict) {
+        this.content = content;
+        this.pos = start;
+        this.end = end;
+        this.strict = strict;
+    }
+
+    /**
+     * Parse a number that fills the whole of {@code text}.
+     * @return the number or {@link Double#NaN} if {@code text} is not a valid number
+     */
+    public static double parseDouble(CharSequence text) {
+        if (text == null) return Double.NaN;
+        NumberScanner scanner = new NumberScanner(text);
+        double value = scanner.next();
+        return scanner.isAtEnd() ? value : Double.NaN;
+    }
+
+    /**
+     * Parse a plain decimal that fills the whole of {@code text} using strict mode.
+     * @return the number or {@link Double#NaN} if {@code text} is not a valid decimal
+     */
+    public static double parseDecimal(CharSequence text) {
+        if (text == null) return Double.NaN;
+        NumberScanner scanner = new NumberScanner(text, 0, text.length(), true);
+        double value = scanner.next();
+        return scanner.isAtEnd() ? value : Double.NaN;
+    }
+
+    /**
+     * Parse a length with an optional unit suffix (e.g. {@code 12px} or {@code 10mm}).  Surrounding whitespace is ignored.
+     * @return the length in pixels or {@link Double#NaN} if {@code text} is not a valid length
+     */
+    public static double parseLength(CharSequence text) {
+        if (text == null) return Double.NaN;
+        NumberScanner scanner = new NumberScanner(text);
+        scanner.skipWhitespace();
+        double value = scanner.nextLength();
+        scanner.skipWhitespace();
+        return scanner.isAtEnd() ? value : Double.NaN;
+    }
+
+    /**
+     * Parse a list of numbers separated by whitespace and/or commas.  Parsing stops at the first invalid number.
+     */
+    public static double[] parseList(CharSequence text) {
+        NumberScanner scanner = new NumberScanner(text);
+        double[] values = new double[Math.max(4, text.length()/4)];
+        int count = 0;
+        while (scanner.hasNext()) {
+            double value = scanner.next();
+            if (Double.isNaN(value)) break;
+            if (count == values.length) values = Arrays.copyOf(values, count*2);
+            values[count++] = value;
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    public int getPosition() {
+        return pos;
+    }
+
+    public boolean isAtEnd() {
+        return pos >= end;
+    }
+
+    /**
+     * @return the next character without consuming it
+     */
+    public char peek() {
+        return content.charAt(pos);
+    }
+
+    /**
+     * @return the next character
+     */
+    public char nextChar() {
+        return content.charAt(pos++);
+    }
+
+    public void skipWhitespace() {
+        while (pos < end && isWhitespace(content.charAt(pos))) pos++;
+    }
+
+    /**
+     * Skip whitespace and commas.
+     */
+    public void skipSeparators() {
+        while (pos < end && isSeparator(content.charAt(pos))) pos++;
+    }
+
+    /**
+     * Skip separators and check if the next character can start a number.
+     */
+    public boolean hasNext() {
+        skipSeparators();
+        return pos < end && isNumberStart(content.charAt(pos));
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t' || ch == '\f';
+    }
+
+    private static boolean isSeparator(char ch) {
+        return ch == ',' || isWhitespace(ch);
+    }
+
+    private static boolean isNumberStart(char ch) {
+        return isDigit(ch) || ch == '.' || ch == '-' || ch == '+';
+    }
+
+    /**
+     * @return true if {@code ch} is an ASCII digit
+     */
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    /**
+     * Read a single character flag ({@code 0} or {@code 1}).
+     * @return the flag value or {@link Double#NaN} if the next character is not a flag
+     */
+    public double nextFlag() {
+        if (pos < end) {
+            char ch = content.charAt(pos);
+            if (ch == '0' || ch == '1') {
+                pos++;
+                return ch-'0';
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Read a number followed by an optional unit.  Units are not accepted in strict mode.
+     * @return the length in pixels or {@link Double#NaN} if there is no number or the unit is not supported
+     */
+    public double nextLength() {
+        double value = next();
+        if (!strict && pos+1 < end && isLetter(content.charAt(pos))) {
+            double scale = getUnitScale(content.charAt(pos), content.charAt(pos+1));
+            pos += 2;
+            return value*scale;
+        }
+        return value;
+    }
+
+    private static double getUnitScale(char ch1, char ch2) {
+        switch (ch1) {
+            case 'p':
+                if (ch2 == 'x') return 1d;
+                if (ch2 == 't') return PX_PER_INCH/72;
+                if (ch2 == 'c') return PX_PER_INCH/6;
+                break;
+            case 'i':
+                if (ch2 == 'n') return PX_PER_INCH;
+                break;
+            case 'c':
+                if (ch2 == 'm') return PX_PER_INCH/2.54;
+                break;
+            case 'm':
+                if (ch2 == 'm') return PX_PER_INCH/25.4;
+                break;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Read a number at the current position.
+     * @return the number or {@link Double#NaN} if there is no number at the current position
+     */
+    public double next() {
+        final int start = pos;
+        if (pos >= end) return Double.NaN;
+        boolean negative = false;
+        char ch = content.charAt(pos);
+        if (ch == '-' || ch == '+' && !strict) {
+            negative = ch == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean hasDigits = false, exact = true;
+        while (pos < end && isDigit(ch = content.charAt(pos))) {
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa*10+(ch-'0');
+                if (mantissa != 0) digits++;
+            }
+            else {
+                exponent++;
+                exact = false;
+            }
+            hasDigits = true;
+            pos++;
+        }
+        if (pos < end && content.charAt(pos) == '.') {
+            pos++;
+            while (pos < end && isDigit(ch = content.charAt(pos))) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa*10+(ch-'0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                else exact = false;
+                hasDigits = true;
+                pos++;
+            }
+        }
+        if (!hasDigits) {
+            pos = start;
+            return Double.NaN;
+        }
+        if (!strict) exponent += nextExponent();
+        if (mantissa == 0) return negative ? -0d : 0d;
+        if (exact && mantissa < MAX_EXACT_MANTISSA && Math.abs(exponent) <= MAX_EXACT_POWER) {
+            double value = exponent < 0 ? mantissa/POWERS_OF_TEN[-exponent] : mantissa*POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(content.subSequence(start, pos).toString());
+    }
+
+    /**
+     * Read an exponent if the next characters are {@code e} or {@code E} followed by an optionally signed integer.
+     * @return the exponent or 0 if there is no exponent
+     */
+    private int nextExponent() {
+        if (pos < end && (content.charAt(pos) == 'e' || content.charAt(pos) == 'E')) {
+            int expStart = pos+1;
+            boolean negative = false;
+            if (expStart < end && (content.charAt(expStart) == '-' || content.charAt(expStart) == '+')) {
+                negative = content.charAt(expStart) == '-';
+                expStart++;
+            }
+            if (expStart < end && isDigit(content.charAt(expStart))) {
+                int exponent = 0;
+                char ch;
+                pos = expStart;
+                while (pos < end && isDigit(ch = content.charAt(pos))) {
+                    if (exponent < 10000) exponent = exponent*10+(ch-'0');
+                    pos++;
+                }
+                return negative ? -exponent : exponent;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,275 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javafx.geometry.Point2D;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.transform.Affine;
+import org.xml.sax.Attributes;
+
+/**
+ * The paint servers defined by an SVG document.  Gradients are converted to {@link LinearGradient}s and
+ * {@link RadialGradient}s when they are first referenced and the same instance is then shared by every shape that
+ * references the gradient.  References to other paint servers (e.g. patterns) use the fallback paint.
+ * <p>
+ * A gradient can be referenced before it is defined.  The setters for such forward references are recorded and called
+ * again with the gradient by {@link #resolveForwardReferences()} at the end of the document.
+ */
+public class PaintRegistry {
+    private static final String URL_PREFIX = "url(";
+    private static final int MAX_HREF_DEPTH = 16;
+
+    private final StyleSheet styleSheet;
+    private final Map<String, SvgTemplate> definitions = new HashMap<>();
+    /** the shared paint for each referenced gradient ({@code null} if the gradient is invalid) */
+    private final Map<String, Paint> paints = new HashMap<>();
+    /** the setters for paint values that referenced a gradient before it was defined, with the values */
+    private final List<Map.Entry<String, Consumer<Paint>>> forwardReferences = new ArrayList<>();
+    /** true when the document has been read, i.e. no more gradients will be defined */
+    private boolean resolved = false;
+
+    /**
+     * @param styleSheet used to resolve the style of the gradient stops
+     */
+    public PaintRegistry(StyleSheet styleSheet) {
+        this.styleSheet = styleSheet;
+    }
+
+    /**
+     * Create a registry containing gradients that have already been converted (e.g. read from a snapshot).
+     * @param gradients the paint for each gradient id
+     */
+    static PaintRegistry of(Map<String, Paint> gradients) {
+        PaintRegistry registry = new PaintRegistry(new StyleSheet());
+        registry.paints.putAll(gradients);
+        registry.resolved = true;
+        return registry;
+    }
+
+    /**
+     * @return the paint for each valid gradient, converting the gradients that haven't been referenced yet
+     */
+    synchronized Map<String, Paint> getGradients() {
+        definitions.keySet().forEach(this::getGradient);
+        Map<String, Paint> gradients = new TreeMap<>();
+        paints.forEach((id, paint) -> {
+            if (paint != null) gradients.put(id, paint);
+        });
+        return gradients;
+    }
+
+    synchronized void define(String id, SvgTemplate gradient) {
+        definitions.put(id, gradient);
+        paints.remove(id);
+    }
+
+    /**
+     * Get the shared {@link Paint} for a paint attribute value.  A reference to an undefined gradient uses the
+     * fallback value, if there is one, or {@code null}.
+     * @throws IllegalArgumentException if {@code value} is not a valid paint
+     */
+    public Paint getPaint(String value) {
+        String paint = value.trim();
+        if (paint.startsWith(URL_PREFIX)) {
+            int end = paint.indexOf(')');
+            if (end < 0) throw new IllegalArgumentException("Invalid paint: " + value);
+            String id = getReferencedId(paint);
+            Paint gradient = id == null ? null : getGradient(id);
+            if (gradient != null) return gradient;
+            String fallback = paint.substring(end+1).trim();
+            return fallback.isEmpty() || fallback.equals("none") ? null : AttributeParser.parsePaint(fallback);
+        }
+        return AttributeParser.parsePaint(paint);
+    }
+
+    /**
+     * Call {@code setter} with the shared {@link Paint} for a paint attribute value.  If the value references a gradient
+     * that hasn't been defined yet, then {@code setter} is called again by {@link #resolveForwardReferences()}.
+     * @throws IllegalArgumentException if {@code value} is not a valid paint
+     */
+    public void setPaint(String value, Consumer<Paint> setter) {
+        setter.accept(getPaint(value));
+        whenDefined(value, setter);
+    }
+
+    /**
+     * @return true if {@code value} references a gradient that hasn't been defined yet
+     */
+    public synchronized boolean isForwardReference(String value) {
+        String id = resolved || value == null ? null : getReferencedId(value);
+        return id != null && !definitions.containsKey(id);
+    }
+
+    /**
+     * Record a setter to be called by {@link #resolveForwardReferences()}, if {@code value} references a gradient that
+     * hasn't been defined yet.
+     */
+    public synchronized void whenDefined(String value, Consumer<Paint> setter) {
+        if (isForwardReference(value)) forwardReferences.add(new SimpleImmutableEntry<>(value, setter));
+    }
+
+    /**
+     * Call the setters of the forward references with the gradients that were defined later in the document.
+     */
+    synchronized void resolveForwardReferences() {
+        resolved = true;
+        forwardReferences.forEach(reference -> reference.getValue().accept(getPaint(reference.getKey())));
+        forwardReferences.clear();
+    }
+
+    /**
+     * @return the id of the gradient referenced by a paint value or {@code null} if it doesn't reference a gradient
+     */
+    private static String getReferencedId(String value) {
+        String paint = value.trim();
+        int end = paint.indexOf(')');
+        if (paint.startsWith(URL_PREFIX) && end > 0) {
+            String reference = paint.substring(URL_PREFIX.length(), end).trim().replaceAll("^['\"]|['\"]$", "");
+            if (reference.startsWith("#")) return reference.substring(1);
+        }
+        return null;
+    }
+
+    private synchronized Paint getGradient(String id) {
+        if (!paints.containsKey(id)) {
+            SvgTemplate gradient = definitions.get(id);
+            paints.put(id, gradient == null ? null : createGradient(gradient));
+        }
+        return paints.get(id);
+    }
+
+    private Paint createGradient(SvgTemplate gradient) {
+        List<Stop> stops = getStops(gradient);
+        if (stops.isEmpty()) return null;
+        if (stops.size() == 1) return stops.get(0).getColor();
+        boolean proportional = !"userSpaceOnUse".equals(getAttribute(gradient, "gradientUnits"));
+        CycleMethod cycleMethod = getCycleMethod(getAttribute(gradient, "spreadMethod"));
+        String transform = getAttribute(gradient, "gradientTransform");
+        Affine affine = transform == null ? new Affine() : TransformParser.parseAffine(transform);
+        if ("linearGradient".equals(gradient.getName())) {
+            Point2D start = affine.transform(getCoordinate(gradient, "x1", 0d), getCoordinate(gradient, "y1", 0d));
+            Point2D end = affine.transform(getCoordinate(gradient, "x2", 1d), getCoordinate(gradient, "y2", 0d));
+            return new LinearGradient(start.getX(), start.getY(), end.getX(), end.getY(), proportional, cycleMethod, stops);
+        }
+        double cx = getCoordinate(gradient, "cx", 0.5d);
+        double cy = getCoordinate(gradient, "cy", 0.5d);
+        double r = getCoordinate(gradient, "r", 0.5d);
+        if (r <= 0d) return stops.get(stops.size()-1).getColor();
+        Point2D center = affine.transform(cx, cy);
+        Point2D focus = affine.transform(getCoordinate(gradient, "fx", cx), getCoordinate(gradient, "fy", cy));
+        double radius = r*Math.sqrt(Math.abs(affine.determinant()));
+        double focusDistance = Math.min(center.distance(focus)/radius, 1d);
+        double focusAngle = Math.toDegrees(Math.atan2(focus.getY()-center.getY(), focus.getX()-center.getX()));
+        return new RadialGradient(focusAngle, focusDistance, center.getX(), center.getY(), radius, proportional, cycleMethod, stops);
+    }
+
+    private static CycleMethod getCycleMethod(String spreadMethod) {
+        if ("reflect".equals(spreadMethod)) return CycleMethod.REFLECT;
+        if ("repeat".equals(spreadMethod)) return CycleMethod.REPEAT;
+        return CycleMethod.NO_CYCLE;
+    }
+
+    /**
+     * @return the value of a coordinate attribute (percentages are converted to fractions)
+     */
+    private double getCoordinate(SvgTemplate gradient, String name, double defaultValue) {
+        String value = getAttribute(gradient, name);
+        double coordinate = value == null ? Double.NaN : parseFraction(value);
+        return Double.isNaN(coordinate) ? defaultValue : coordinate;
+    }
+
+    /**
+     * @return the value of a number or percentage (as a fraction) or {@link Double#NaN} if {@code value} is invalid
+     */
+    private static double parseFraction(String value) {
+        String number = value.trim();
+        return number.endsWith("%") ? NumberScanner.parseDouble(number.substring(0, number.length()-1))/100d
+                : NumberScanner.parseLength(number);
+    }
+
+    /**
+     * @return the attribute value from the gradient or the gradients that it references
+     */
+    private String getAttribute(SvgTemplate gradient, String name) {
+        for (int depth = 0; gradient != null && depth < MAX_HREF_DEPTH; depth++) {
+            String value = gradient.getAttributes().getValue(name);
+            if (value != null) return value;
+            gradient = getReferenced(gradient);
+        }
+        return null;
+    }
+
+    /**
+     * @return the stops of the gradient or, if it doesn't have any, of the gradient that it references
+     */
+    private List<Stop> getStops(SvgTemplate gradient) {
+        List<Stop> stops = new ArrayList<>();
+        for (int depth = 0; gradient != null && stops.isEmpty() && depth < MAX_HREF_DEPTH; depth++) {
+            double offset = 0d;
+            for (Object child : gradient.getChildren()) {
+                if (child instanceof SvgTemplate && "stop".equals(((SvgTemplate) child).getName())) {
+                    Stop stop = createStop(styleSheet.resolve("stop", ((SvgTemplate) child).getAttributes()), offset);
+                    offset = stop.getOffset();
+                    stops.add(stop);
+                }
+            }
+            gradient = getReferenced(gradient);
+        }
+        return stops;
+    }
+
+    private static Stop createStop(Attributes attributes, double minOffset) {
+        String value = attributes.getValue("offset");
+        double offset = value == null ? 0d : parseFraction(value);
+        offset = Double.isNaN(offset) ? minOffset : Math.max(minOffset, Math.min(offset, 1d));
+        return new Stop(offset, getColor(attributes.getValue("stop-color"), attributes.getValue("stop-opacity")));
+    }
+
+    private static Color getColor(String color, String opacity) {
+        double alpha = opacity == null ? 1d : NumberScanner.parseDouble(opacity.trim());
+        alpha = Double.isNaN(alpha) ? 1d : Math.max(0d, Math.min(alpha, 1d));
+        try {
+            return color == null ? Color.color(0, 0, 0, alpha) : Color.web(color.trim(), alpha);
+        } catch (IllegalArgumentException ex) {
+            return Color.color(0, 0, 0, alpha);
+        }
+    }
+
+    private SvgTemplate getReferenced(SvgTemplate gradient) {
+        String href = gradient.getAttributes().getValue(SvgParser.XLINK_NAMESPACE, "href");
+        if (href == null) href = gradient.getAttributes().getValue("href");
+        return href != null && href.startsWith("#") ? definitions.get(href.substring(1)) : null;
+    }
+}
@@ -22,15 +22,7 @@
 package io.github.jonestimd.vgeditor.svg;
 
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-
-import com.google.common.collect.ImmutableMap;
-import javafx.geometry.Point2D;
+
 import javafx.scene.shape.ArcTo;
 import javafx.scene.shape.ClosePath;
 import javafx.scene.shape.CubicCurveTo;
@@ -43,40 +35,66 @@ import javafx.scene.shape.QuadCurveTo;
 import static java.lang.Character.*;
 
 /**
- * Parses the {@code d} attribute of an SVG path.
+ * Parses the {@code d} attribute of an SVG path.  The path data is scanned in a single pass, reading the arguments of
+ * each command into a reusable buffer using a {@link NumberScanner}.  Parsing stops at the first invalid command or
+ * argument, leaving the elements parsed up to that point.
  * <strong>Note:</strong> This class is not thread safe.
+ * @see <a href="https://www.w3.org/TR/SVG11/paths.html#PathDataBNF">Path data grammar</a>
  */
 public class PathParser {
-    private static final Pattern SVG_PATTERN = Pattern.compile("([mMlLhHvVcCqQsStTaAzZ])([+\\-,. 0-9]+)?");
-    private static final Map<String, Handler> HANDLER_MAP = ImmutableMap.<String, Handler>builder()
-            .put("m", PathParser::moveTo)
-            .put("l", PathParser::lineTo)
-            .put("h", PathParser::horizontalTo)
-            .put("v", PathParser::verticalTo)
-            .put("c", PathParser::cubicCurveTo)
-            .put("s", PathParser::smoothCubicCurveTo)
-            .put("q", PathParser::quadCurveTo)
-            .put("t", PathParser::smoothQuadCurveTo)
-            .put("a", PathParser::arcTo)
-            .put("z", (parser, absolute, args) -> parser.path.getElements().add(new ClosePath())).build();
-
     private double lastX, lastY, prevCX, prevCY;
     private PathElement lastElement;
     private Path path;
+    private NumberScanner scanner;
+    private boolean error;
+    private double[] args = new double[16];
 
-    public Path parse(String content) {
+    public Path parse(CharSequence content) {
         path = new Path();
         lastElement = null;
-        Matcher matcher = SVG_PATTERN.matcher(content);
-        while (matcher.find()) {
-            String command = matcher.group(1);
-            List<Double> args = parseArgs(matcher.group(2));
-            Handler handler = HANDLER_MAP.get(command.toLowerCase());
-            if (handler != null) handler.accept(this, isUpperCase(command.charAt(0)), args);
+        lastX = lastY = prevCX = prevCY = 0;
+        scanner = new NumberScanner(content);
+        error = false;
+        scanner.skipSeparators();
+        while (!error && !scanner.isAtEnd()) {
+            char command = scanner.nextChar();
+            boolean absolute = isUpperCase(command);
+            switch (toLowerCase(command)) {
+                case 'm': moveTo(absolute, readArgs(false)); break;
+                case 'l': lineTo(absolute, readArgs(false)); break;
+                case 'h': horizontalTo(absolute, readArgs(false)); break;
+                case 'v': verticalTo(absolute, readArgs(false)); break;
+                case 'c': cubicCurveTo(absolute, readArgs(false)); break;
+                case 's': smoothCubicCurveTo(absolute, readArgs(false)); break;
+                case 'q': quadCurveTo(absolute, readArgs(false)); break;
+                case 't': smoothQuadCurveTo(absolute, readArgs(false)); break;
+                case 'a': arcTo(absolute, readArgs(true)); break;
+                case 'z': closePath(); break;
+                default: error = true;
+            }
+            scanner.skipSeparators();
         }
+        scanner = null;
         return path;
     }
 
+    /**
+     * Read the arguments of a command into {@link #args}.
+     * @param arc true if the arguments are for an arc, in which case the 4th and 5th of every 7 arguments are flags
+     * @return the number of arguments read
+     */
+    private int readArgs(boolean arc) {
+        int count = 0;
+        while (!error && scanner.hasNext()) {
+            if (count == args.length) args = Arrays.copyOf(args, count*2);
+            int index = count%7;
+            double value = arc && (index == 3 || index == 4) ? scanner.nextFlag() : scanner.next();
+            if (Double.isNaN(value)) error = true;
+            else args[count++] = value;
+        }
+        return count;
+    }
+
     private void setLastPos(PathElement element, double x, double y) {
         setLastPos(element, x, y, x, y);
     }
@@ -98,9 +116,13 @@ public class PathParser {
         lastElement = element;
     }
 
-    private void moveTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+1 < args.size(); i += 2) {
-            moveTo(absolute, args.get(i), args.get(i+1));
+    /**
+     * Additional coordinate pairs after the first are treated as implicit line commands.
+     */
+    private void moveTo(boolean absolute, int count) {
+        if (count >= 2) {
+            moveTo(absolute, args[0], args[1]);
+            lineTo(absolute, 2, count);
         }
     }
 
@@ -110,9 +132,13 @@ public class PathParser {
         setLastPos(moveTo, x, y);
     }
 
-    private void lineTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+1 < args.size(); i += 2) {
-            lineTo(absolute, args.get(i), args.get(i+1));
+    private void lineTo(boolean absolute, int count) {
+        lineTo(absolute, 0, count);
+    }
+
+    private void lineTo(boolean absolute, int offset, int count) {
+        for (int i = offset; i+1 < count; i += 2) {
+            lineTo(absolute, args[i], args[i+1]);
         }
     }
 
@@ -122,21 +148,21 @@ public class PathParser {
         setLastPos(lineTo, x, y);
     }
 
-    private void horizontalTo(boolean absolute, List<Double> args) {
-        for (Double arg : args) {
-            lineTo(absolute, Arrays.asList(arg, absolute ? lastY : 0));
+    private void horizontalTo(boolean absolute, int count) {
+        for (int i = 0; i < count; i++) {
+            lineTo(absolute, args[i], absolute ? lastY : 0);
         }
     }
 
-    private void verticalTo(boolean absolute, List<Double> args) {
-        for (Double arg : args) {
-            lineTo(absolute, Arrays.asList(absolute ? lastX : 0, arg));
+    private void verticalTo(boolean absolute, int count) {
+        for (int i = 0; i < count; i++) {
+            lineTo(absolute, absolute ? lastX : 0, args[i]);
         }
     }
 
-    private void cubicCurveTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+5 < args.size(); i += 6) {
-            cubicCurveTo(absolute, args.get(i), args.get(i+1), args.get(i+2), args.get(i+3), args.get(i+4), args.get(i+5));
+    private void cubicCurveTo(boolean absolute, int count) {
+        for (int i = 0; i+5 < count; i += 6) {
+            cubicCurveTo(absolute, args[i], args[i+1], args[i+2], args[i+3], args[i+4], args[i+5]);
         }
     }
 
@@ -146,17 +172,16 @@ public class PathParser {
         setLastPos(curveTo, x, y, cx2, cy2);
     }
 
-    private void smoothCubicCurveTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+3 < args.size(); i += 4) {
+    private void smoothCubicCurveTo(boolean absolute, int count) {
+        for (int i = 0; i+3 < count; i += 4) {
             if (!(lastElement instanceof CubicCurveTo)) prevCX = prevCY = 0;
-            Point2D control = getControlPoint(absolute);
-            cubicCurveTo(absolute, control.getX(), control.getY(), args.get(i), args.get(i+1), args.get(i+2), args.get(i+3));
+            cubicCurveTo(absolute, getControlX(absolute), getControlY(absolute), args[i], args[i+1], args[i+2], args[i+3]);
         }
     }
 
-    private void quadCurveTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+3 < args.size(); i += 4) {
-            quadCurveTo(absolute, args.get(i), args.get(i+1), args.get(i+2), args.get(i+3));
+    private void quadCurveTo(boolean absolute, int count) {
+        for (int i = 0; i+3 < count; i += 4) {
+            quadCurveTo(absolute, args[i], args[i+1], args[i+2], args[i+3]);
         }
     }
 
@@ -166,27 +191,30 @@ public class PathParser {
         setLastPos(curveTo, x, y, cx, cy);
     }
 
-    private void smoothQuadCurveTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+1 < args.size(); i += 2) {
+    private void smoothQuadCurveTo(boolean absolute, int count) {
+        for (int i = 0; i+1 < count; i += 2) {
             if (!(lastElement instanceof QuadCurveTo)) prevCX = prevCY = 0;
-            Point2D control = getControlPoint(absolute);
-            quadCurveTo(absolute, control.getX(), control.getY(), args.get(i), args.get(i+1));
+            quadCurveTo(absolute, getControlX(absolute), getControlY(absolute), args[i], args[i+1]);
         }
     }
 
-    private Point2D getControlPoint(boolean absolute) {
-        double cx = 2*lastX-prevCX;
-        double cy = 2*lastY-prevCY;
-        if (!absolute) {
-            cx -= lastX;
-            cy -= lastY;
-        }
-        return new Point2D(cx, cy);
+    /**
+     * @return the x coordinate of the reflection of the previous control point
+     */
+    private double getControlX(boolean absolute) {
+        return absolute ? 2*lastX-prevCX : lastX-prevCX;
+    }
+
+    /**
+     * @return the y coordinate of the reflection of the previous control point
+     */
+    private double getControlY(boolean absolute) {
+        return absolute ? 2*lastY-prevCY : lastY-prevCY;
     }
 
-    private void arcTo(boolean absolute, List<Double> args) {
-        for (int i = 0; i+6 < args.size(); i += 7) {
-            arcTo(absolute, args.get(i), args.get(i+1), args.get(i+2), args.get(i+3) != 0, args.get(i+4) != 0, args.get(i+5), args.get(i+6));
+    private void arcTo(boolean absolute, int count) {
+        for (int i = 0; i+6 < count; i += 7) {
+            arcTo(absolute, args[i], args[i+1], args[i+2], args[i+3] != 0, args[i+4] != 0, args[i+5], args[i+6]);
         }
     }
 
@@ -196,11 +224,7 @@ public class PathParser {
         setLastPos(arcTo, x, y);
     }
 
-    private static List<Double> parseArgs(String args) {
-        return args != null ? Arrays.stream(args.trim().split("(, *| +)")).map(Double::parseDouble).collect(Collectors.toList()) : Collections.EMPTY_LIST;
-    }
-
-    private interface Handler {
-        void accept(PathParser parser, boolean absolute, List<Double> args);
+    private void closePath() {
+        path.getElements().add(new ClosePath());
     }
 }
@@ -0,0 +1,544 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.github.jonestimd.vgeditor.scene.model.CircleModel;
+import io.github.jonestimd.vgeditor.scene.model.EllipseModel;
+import io.github.jonestimd.vgeditor.scene.model.GroupDefaults;
+import io.github.jonestimd.vgeditor.scene.model.LineModel;
+import io.github.jonestimd.vgeditor.scene.model.PathModel;
+import io.github.jonestimd.vgeditor.scene.model.PolygonModel;
+import io.github.jonestimd.vgeditor.scene.model.PolylineModel;
+import io.github.jonestimd.vgeditor.scene.model.RectangleModel;
+import io.github.jonestimd.vgeditor.scene.model.SvgPathModel;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.QuadCurveTo;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Writes and reads a compact binary copy of a parsed diagram, so that it can be rebuilt without parsing the SVG.  The
+ * snapshot contains the shape kinds, their coordinates, the paints (each distinct paint is written once) and the
+ * composed transform of each node.  The document's gradients and the inherited presentation attributes of each group
+ * are also written, so that the {@link GroupDefaults} can be rebuilt for shapes that are added to the diagram later.
+ * Colors and gradients are the only paints supported.  Only the nodes created by {@link SvgParser} are supported.
+ */
+public class SceneSnapshot {
+    private static final int MAGIC = 0x56474553;
+    /** increment when the format changes, so that existing snapshots are treated as stale */
+    private static final int VERSION = 4;
+
+    private static final byte GROUP = 0;
+    private static final byte LINE = 1;
+    private static final byte CIRCLE = 2;
+    private static final byte ELLIPSE = 3;
+    private static final byte RECTANGLE = 4;
+    private static final byte PATH = 5;
+    private static final byte POLYGON = 6;
+    private static final byte POLYLINE = 7;
+    private static final byte TEXT = 8;
+    private static final byte SVG_PATH = 9;
+
+    private static final byte MOVE_TO = 0;
+    private static final byte LINE_TO = 1;
+    private static final byte QUAD_CURVE_TO = 2;
+    private static final byte CUBIC_CURVE_TO = 3;
+    private static final byte ARC_TO = 4;
+    private static final byte CLOSE_PATH = 5;
+
+    private static final int NO_PAINT = -1;
+    private static final int NEW_PAINT = -2;
+
+    private static final byte COLOR = 0;
+    private static final byte LINEAR_GRADIENT = 1;
+    private static final byte RADIAL_GRADIENT = 2;
+
+    private SceneSnapshot() {}
+
+    /**
+     * Write the children of {@code root}.
+     * @throws IOException if the diagram contains a node that can't be written
+     */
+    public static void write(Group root, DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        Writer writer = new Writer(output);
+        writer.writeGradients(findPaints(root));
+        writer.writeChildren(root);
+    }
+
+    /**
+     * Add the nodes from a snapshot to {@code root}.
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     * @throws IOException if the snapshot is invalid or was written by a different version
+     */
+    public static void read(DataInput input, Group root, Consumer<Node> nodeConsumer) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION) throw new IOException("Unsupported snapshot format");
+        Reader reader = new Reader(input, nodeConsumer);
+        reader.readGradients();
+        reader.readChildren(root);
+    }
+
+    /**
+     * @return the gradients of the document or null if the diagram doesn't have any groups with defaults
+     */
+    private static PaintRegistry findPaints(Group group) {
+        GroupDefaults defaults = GroupDefaults.of(group);
+        if (defaults != null && defaults.getPaints() != null) return defaults.getPaints();
+        for (Node node : group.getChildren()) {
+            PaintRegistry paints = node instanceof Group ? findPaints((Group) node) : null;
+            if (paints != null) return paints;
+        }
+        return null;
+    }
+
+    private static class Writer {
+        private final DataOutput output;
+        private final Map<Paint, Integer> paints = new HashMap<>();
+
+        public Writer(DataOutput output) {
+            this.output = output;
+        }
+
+        public void writeGradients(PaintRegistry registry) throws IOException {
+            output.writeBoolean(registry != null);
+            if (registry != null) {
+                Map<String, Paint> gradients = registry.getGradients();
+                output.writeInt(gradients.size());
+                for (Map.Entry<String, Paint> entry : gradients.entrySet()) {
+                    writeString(entry.getKey());
+                    writePaint(entry.getValue());
+                }
+            }
+        }
+
+        public void writeChildren(Group group) throws IOException {
+            output.writeInt(group.getChildren().size());
+            for (Node node : group.getChildren()) {
+                writeNode(node);
+            }
+        }
+
+        private void writeNode(Node node) throws IOException {
+            if (node instanceof Group) {
+                output.writeByte(GROUP);
+                writeTransform(node);
+                writeDefaults((Group) node);
+                writeChildren((Group) node);
+            }
+            else if (node instanceof Line) {
+                Line line = writeShape(LINE, (Line) node);
+                writeDoubles(line.getStartX(), line.getStartY(), line.getEndX(), line.getEndY());
+            }
+            else if (node instanceof Circle) {
+                Circle circle = writeShape(CIRCLE, (Circle) node);
+                writeDoubles(circle.getCenterX(), circle.getCenterY(), circle.getRadius());
+            }
+            else if (node instanceof Ellipse) {
+                Ellipse ellipse = writeShape(ELLIPSE, (Ellipse) node);
+                writeDoubles(ellipse.getCenterX(), ellipse.getCenterY(), ellipse.getRadiusX(), ellipse.getRadiusY());
+            }
+            else if (node instanceof Rectangle) {
+                Rectangle rect = writeShape(RECTANGLE, (Rectangle) node);
+                writeDoubles(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight());
+            }
+            else if (node instanceof Path) {
+                writePath(writeShape(PATH, (Path) node));
+            }
+            else if (node instanceof SVGPath) {
+                writeString(writeShape(SVG_PATH, (SVGPath) node).getContent());
+            }
+            else if (node instanceof Polygon) {
+                writePoints(writeShape(POLYGON, (Polygon) node).getPoints());
+            }
+            else if (node instanceof Polyline) {
+                writePoints(writeShape(POLYLINE, (Polyline) node).getPoints());
+            }
+            else if (node instanceof Text) {
+                Text text = writeShape(TEXT, (Text) node);
+                writeDoubles(text.getX(), text.getY());
+                writeString(text.getText());
+                writeString(text.getFont().getName());
+                output.writeDouble(text.getFont().getSize());
+            }
+            else throw new IOException("Unsupported node: " + node.getClass().getName());
+        }
+
+        /**
+         * Write the inherited attribute values that the group doesn't share with its parent.
+         */
+        private void writeDefaults(Group group) throws IOException {
+            GroupDefaults defaults = GroupDefaults.of(group);
+            output.writeBoolean(defaults != null);
+            if (defaults != null) {
+                GroupDefaults parent = GroupDefaults.of((Group) group.getParent());
+                List<String> names = new ArrayList<>();
+                for (String name : GroupDefaults.INHERITED) {
+                    String value = defaults.getString(name);
+                    if (value != null && (parent == null || !value.equals(parent.getString(name)))) names.add(name);
+                }
+                output.writeInt(names.size());
+                for (String name : names) {
+                    writeString(name);
+                    writeString(defaults.getString(name));
+                }
+            }
+        }
+
+        private <T extends Shape> T writeShape(byte kind, T shape) throws IOException {
+            output.writeByte(kind);
+            writeTransform(shape);
+            writePaint(shape.getFill());
+            writePaint(shape.getStroke());
+            output.writeDouble(shape.getStrokeWidth());
+            return shape;
+        }
+
+        private void writeTransform(Node node) throws IOException {
+            List<Transform> transforms = node.getTransforms();
+            output.writeBoolean(!transforms.isEmpty());
+            if (!transforms.isEmpty()) {
+                Affine affine = new Affine();
+                transforms.forEach(affine::append);
+                writeDoubles(affine.getMxx(), affine.getMxy(), affine.getTx(), affine.getMyx(), affine.getMyy(), affine.getTy());
+            }
+        }
+
+        private void writePaint(Paint paint) throws IOException {
+            if (paint == null) output.writeInt(NO_PAINT);
+            else {
+                Integer index = paints.get(paint);
+                if (index != null) output.writeInt(index);
+                else {
+                    output.writeInt(NEW_PAINT);
+                    if (paint instanceof Color) {
+                        output.writeByte(COLOR);
+                        writeColor((Color) paint);
+                    }
+                    else if (paint instanceof LinearGradient) {
+                        LinearGradient gradient = (LinearGradient) paint;
+                        output.writeByte(LINEAR_GRADIENT);
+                        writeDoubles(gradient.getStartX(), gradient.getStartY(), gradient.getEndX(), gradient.getEndY());
+                        writeGradient(gradient.isProportional(), gradient.getCycleMethod(), gradient.getStops());
+                    }
+                    else if (paint instanceof RadialGradient) {
+                        RadialGradient gradient = (RadialGradient) paint;
+                        output.writeByte(RADIAL_GRADIENT);
+                        writeDoubles(gradient.getFocusAngle(), gradient.getFocusDistance(), gradient.getCenterX(),
+                                gradient.getCenterY(), gradient.getRadius());
+                        writeGradient(gradient.isProportional(), gradient.getCycleMethod(), gradient.getStops());
+                    }
+                    else throw new IOException("Unsupported paint: " + paint.getClass().getName());
+                    paints.put(paint, paints.size());
+                }
+            }
+        }
+
+        private void writeColor(Color color) throws IOException {
+            writeDoubles(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity());
+        }
+
+        private void writeGradient(boolean proportional, CycleMethod cycleMethod, List<Stop> stops) throws IOException {
+            output.writeBoolean(proportional);
+            output.writeByte(cycleMethod.ordinal());
+            output.writeInt(stops.size());
+            for (Stop stop : stops) {
+                output.writeDouble(stop.getOffset());
+                writeColor(stop.getColor());
+            }
+        }
+
+        private void writePath(Path path) throws IOException {
+            output.writeInt(path.getElements().size());
+            for (PathElement element : path.getElements()) {
+                if (element instanceof MoveTo) {
+                    MoveTo moveTo = writeElement(MOVE_TO, (MoveTo) element);
+                    writeDoubles(moveTo.getX(), moveTo.getY());
+                }
+                else if (element instanceof LineTo) {
+                    LineTo lineTo = writeElement(LINE_TO, (LineTo) element);
+                    writeDoubles(lineTo.getX(), lineTo.getY());
+                }
+                else if (element instanceof QuadCurveTo) {
+                    QuadCurveTo curveTo = writeElement(QUAD_CURVE_TO, (QuadCurveTo) element);
+                    writeDoubles(curveTo.getControlX(), curveTo.getControlY(), curveTo.getX(), curveTo.getY());
+                }
+                else if (element instanceof CubicCurveTo) {
+                    CubicCurveTo curveTo = writeElement(CUBIC_CURVE_TO, (CubicCurveTo) element);
+                    writeDoubles(curveTo.getControlX1(), curveTo.getControlY1(), curveTo.getControlX2(), curveTo.getControlY2(),
+                            curveTo.getX(), curveTo.getY());
+                }
+                else if (element instanceof ArcTo) {
+                    ArcTo arcTo = writeElement(ARC_TO, (ArcTo) element);
+                    writeDoubles(arcTo.getRadiusX(), arcTo.getRadiusY(), arcTo.getXAxisRotation(), arcTo.getX(), arcTo.getY());
+                    output.writeBoolean(arcTo.isLargeArcFlag());
+                    output.writeBoolean(arcTo.isSweepFlag());
+                }
+                else if (element instanceof ClosePath) {
+                    writeElement(CLOSE_PATH, element);
+                }
+                else throw new IOException("Unsupported path element: " + element.getClass().getName());
+            }
+        }
+
+        private <T extends PathElement> T writeElement(byte type, T element) throws IOException {
+            output.writeByte(type);
+            output.writeBoolean(element.isAbsolute());
+            return element;
+        }
+
+        private void writePoints(List<Double> points) throws IOException {
+            output.writeInt(points.size());
+            for (Double value : points) {
+                output.writeDouble(value);
+            }
+        }
+
+        private void writeDoubles(double... values) throws IOException {
+            for (double value : values) {
+                output.writeDouble(value);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            output.writeInt(value.length());
+            output.writeChars(value);
+        }
+    }
+
+    private static class Reader {
+        private final DataInput input;
+        private final Consumer<Node> nodeConsumer;
+        private final List<Paint> paints = new ArrayList<>();
+        /** the gradients of the document (null if the snapshot doesn't have any group defaults) */
+        private PaintRegistry registry;
+
+        public Reader(DataInput input, Consumer<Node> nodeConsumer) {
+            this.input = input;
+            this.nodeConsumer = nodeConsumer;
+        }
+
+        public void readGradients() throws IOException {
+            if (input.readBoolean()) {
+                Map<String, Paint> gradients = new HashMap<>();
+                for (int count = input.readInt(); count > 0; count--) {
+                    gradients.put(readString(), readPaint());
+                }
+                registry = PaintRegistry.of(gradients);
+            }
+        }
+
+        public void readChildren(Group group) throws IOException {
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                readNode(group);
+            }
+        }
+
+        private void readNode(Group parent) throws IOException {
+            byte kind = input.readByte();
+            if (kind == GROUP) {
+                Group group = new Group();
+                readTransform(group.getTransforms());
+                readDefaults(group, parent);
+                parent.getChildren().add(group);
+                nodeConsumer.accept(group);
+                readChildren(group);
+            }
+            else {
+                Affine transform = input.readBoolean() ? readAffine() : null;
+                Paint fill = readPaint();
+                Paint stroke = readPaint();
+                double strokeWidth = input.readDouble();
+                Shape shape = readShape(kind, parent);
+                if (transform != null) shape.getTransforms().add(transform);
+                shape.setFill(fill);
+                shape.setStroke(stroke);
+                shape.setStrokeWidth(strokeWidth);
+                nodeConsumer.accept(shape);
+            }
+        }
+
+        private void readDefaults(Group group, Group parent) throws IOException {
+            if (input.readBoolean()) {
+                AttributesImpl attributes = new AttributesImpl();
+                for (int count = input.readInt(); count > 0; count--) {
+                    String name = readString();
+                    attributes.addAttribute("", name, name, "CDATA", readString());
+                }
+                group.setUserData(new GroupDefaults(GroupDefaults.of(parent), attributes, registry));
+            }
+        }
+
+        private Shape readShape(byte kind, Group parent) throws IOException {
+            switch (kind) {
+                case LINE: return new LineModel(parent, input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble()).getShape();
+                case CIRCLE: return new CircleModel(parent, input.readDouble(), input.readDouble(), input.readDouble()).getShape();
+                case ELLIPSE: return new EllipseModel(parent, input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble()).getShape();
+                case RECTANGLE: return new RectangleModel(parent, input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble()).getShape();
+                case PATH: return new PathModel(parent, readPath()).getShape();
+                case SVG_PATH: return new SvgPathModel(parent, readString(), d -> new PathParser().parse(d)).getShape();
+                case POLYGON: return new PolygonModel(parent, readPoints()).getShape();
+                case POLYLINE: return new PolylineModel(parent, readPoints()).getShape();
+                case TEXT:
+                    Text text = new Text(input.readDouble(), input.readDouble(), readString());
+                    text.setFont(new Font(readString(), input.readDouble()));
+                    parent.getChildren().add(text);
+                    return text;
+                default: throw new IOException("Invalid node type: " + kind);
+            }
+        }
+
+        private void readTransform(List<Transform> transforms) throws IOException {
+            if (input.readBoolean()) transforms.add(readAffine());
+        }
+
+        private Affine readAffine() throws IOException {
+            return new Affine(input.readDouble(), input.readDouble(), input.readDouble(),
+                    input.readDouble(), input.readDouble(), input.readDouble());
+        }
+
+        private Paint readPaint() throws IOException {
+            int index = input.readInt();
+            if (index == NO_PAINT) return null;
+            if (index == NEW_PAINT) {
+                Paint paint = readNewPaint();
+                paints.add(paint);
+                return paint;
+            }
+            if (index < 0 || index >= paints.size()) throw new IOException("Invalid paint index: " + index);
+            return paints.get(index);
+        }
+
+        private Paint readNewPaint() throws IOException {
+            byte type = input.readByte();
+            switch (type) {
+                case COLOR: return readColor();
+                case LINEAR_GRADIENT: {
+                    double startX = input.readDouble(), startY = input.readDouble();
+                    double endX = input.readDouble(), endY = input.readDouble();
+                    return new LinearGradient(startX, startY, endX, endY, input.readBoolean(), readCycleMethod(), readStops());
+                }
+                case RADIAL_GRADIENT: {
+                    double focusAngle = input.readDouble(), focusDistance = input.readDouble();
+                    double centerX = input.readDouble(), centerY = input.readDouble(), radius = input.readDouble();
+                    return new RadialGradient(focusAngle, focusDistance, centerX, centerY, radius, input.readBoolean(),
+                            readCycleMethod(), readStops());
+                }
+                default: throw new IOException("Invalid paint type: " + type);
+            }
+        }
+
+        private Color readColor() throws IOException {
+            return new Color(input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble());
+        }
+
+        private CycleMethod readCycleMethod() throws IOException {
+            byte ordinal = input.readByte();
+            if (ordinal < 0 || ordinal >= CycleMethod.values().length) throw new IOException("Invalid cycle method: " + ordinal);
+            return CycleMethod.values()[ordinal];
+        }
+
+        private List<Stop> readStops() throws IOException {
+            List<Stop> stops = new ArrayList<>();
+            for (int count = input.readInt(); count > 0; count--) {
+                stops.add(new Stop(input.readDouble(), readColor()));
+            }
+            return stops;
+        }
+
+        private PathElement[] readPath() throws IOException {
+            PathElement[] elements = new PathElement[input.readInt()];
+            for (int i = 0; i < elements.length; i++) {
+                byte type = input.readByte();
+                boolean absolute = input.readBoolean();
+                elements[i] = readElement(type);
+                elements[i].setAbsolute(absolute);
+            }
+            return elements;
+        }
+
+        private PathElement readElement(byte type) throws IOException {
+            switch (type) {
+                case MOVE_TO: return new MoveTo(input.readDouble(), input.readDouble());
+                case LINE_TO: return new LineTo(input.readDouble(), input.readDouble());
+                case QUAD_CURVE_TO: return new QuadCurveTo(input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble());
+                case CUBIC_CURVE_TO: return new CubicCurveTo(input.readDouble(), input.readDouble(), input.readDouble(),
+                        input.readDouble(), input.readDouble(), input.readDouble());
+                case ARC_TO: return new ArcTo(input.readDouble(), input.readDouble(), input.readDouble(),
+                        input.readDouble(), input.readDouble(), input.readBoolean(), input.readBoolean());
+                case CLOSE_PATH: return new ClosePath();
+                default: throw new IOException("Invalid path element: " + type);
+            }
+        }
+
+        private double[] readPoints() throws IOException {
+            double[] points = new double[input.readInt()];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = input.readDouble();
+            }
+            return points;
+        }
+
+        private String readString() throws IOException {
+            char[] chars = new char[input.readInt()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = input.readChar();
+            }
+            return new String(chars);
+        }
+    }
+}
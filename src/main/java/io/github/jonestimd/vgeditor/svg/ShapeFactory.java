@@ -21,10 +21,17 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.svg;
 
-import java.io.ByteArrayInputStream;
-import java.util.Base64;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.github.jonestimd.vgeditor.scene.ImageStore;
 import io.github.jonestimd.vgeditor.scene.model.CircleModel;
 import io.github.jonestimd.vgeditor.scene.model.EllipseModel;
 import io.github.jonestimd.vgeditor.scene.model.GroupDefaults;
@@ -35,21 +42,24 @@ import io.github.jonestimd.vgeditor.scene.model.PolygonModel;
 import io.github.jonestimd.vgeditor.scene.model.PolylineModel;
 import io.github.jonestimd.vgeditor.scene.model.RectangleModel;
 import io.github.jonestimd.vgeditor.scene.model.ShapeModel;
+import io.github.jonestimd.vgeditor.scene.model.SvgPathModel;
+import io.github.jonestimd.vgeditor.scene.model.path.PathVisitor;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
 import javafx.scene.Group;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Ellipse;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Polyline;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
 import javafx.scene.shape.Shape;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * Factory class for creating shapes from SVG elements.
@@ -58,22 +68,120 @@ public class ShapeFactory {
     public static final String DEFAULT_FONT_FAMILY = "Liberation Sans";
     public static final String DEFAULT_FONT_WEIGHT = "normal";
     public static final double DEFAULT_FONT_SIZE = 12d;
+    private static volatile boolean lazyPaths = false;
 
-    protected final Attributes attributes;
-    protected final Group group;
+    /** attributes that are indexed when the factory is {@link #reset} */
+    private static final List<String> INDEXED = ImmutableList.of("x", "y", "width", "height", "cx", "cy", "r", "rx", "ry",
+            "x1", "y1", "x2", "y2", "d", "points", "fill", "stroke", "transform", "font-family", "font-size", "font-weight");
+    private static final Map<String, Integer> INDEX;
+
+    static {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+        for (int i = 0; i < INDEXED.size(); i++) {
+            builder.put(INDEXED.get(i), i);
+        }
+        INDEX = builder.build();
+    }
+
+    private static final int FILL = INDEXED.indexOf("fill");
+    private static final int STROKE = INDEXED.indexOf("stroke");
+    private static final int TRANSFORM = INDEXED.indexOf("transform");
+
+    protected Attributes attributes;
+    protected Group group;
+    /** values of the {@link #INDEXED} attributes */
+    private final String[] values = new String[INDEXED.size()];
+    private LoadMetrics metrics = LoadMetrics.DISABLED;
+    /** the buffer used by {@link #resetCopy} */
+    private AttributesImpl attributesCopy;
+
+    /**
+     * @param lazy true to display paths using {@link SVGPath} until they are first hit-tested, false to create
+     *             {@link Path}s
+     */
+    public static void setLazyPaths(boolean lazy) {
+        lazyPaths = lazy;
+    }
 
     public ShapeFactory(Attributes attributes, Group group) {
+        reset(attributes, group);
+    }
+
+    /**
+     * Create a factory to be reused for a series of elements.
+     * @see #reset(Attributes, Group)
+     */
+    public ShapeFactory() {
+    }
+
+    /**
+     * @param metrics records the time spent parsing geometry, transforms and images
+     * @return this factory
+     */
+    ShapeFactory setMetrics(LoadMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Prepare the factory for the next element.  The common attributes are indexed, so that looking them up doesn't
+     * require a scan of the attribute list.
+     * @return this factory
+     */
+    public ShapeFactory reset(Attributes attributes, Group group) {
         this.attributes = attributes;
         this.group = group;
+        Arrays.fill(values, null);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Integer index = INDEX.get(attributes.getQName(i));
+            if (index != null) values[index] = attributes.getValue(i);
+        }
+        return this;
+    }
+
+    /**
+     * Prepare the factory for an element whose shape is created after the XML parser has reused the attributes.  The
+     * attributes are copied to a buffer that is reused by the next call.
+     * @return this factory
+     */
+    ShapeFactory resetCopy(Attributes attributes, Group group) {
+        if (attributesCopy == null) attributesCopy = new AttributesImpl();
+        else attributesCopy.clear();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            attributesCopy.addAttribute(attributes.getURI(i), attributes.getLocalName(i), attributes.getQName(i),
+                    attributes.getType(i), attributes.getValue(i));
+        }
+        return reset(attributesCopy, group);
+    }
+
+    /**
+     * @return the value of an attribute or {@code null} if the attribute is missing
+     */
+    protected String getValue(String name) {
+        Integer index = INDEX.get(name);
+        return index == null ? attributes.getValue(name) : values[index];
     }
 
+    /**
+     * @return the value of a length attribute in pixels or 0 if the attribute is missing
+     */
     protected double getDouble(String name) {
-        return Double.valueOf(attributes.getValue(name));
+        String value = getValue(name);
+        return value == null ? 0d : NumberScanner.parseLength(value);
     }
 
-    protected String getString(String name, String defaultValue) {
+    /**
+     * @return the value of a length attribute in pixels or 0 if the attribute is missing
+     */
+    public static double getLength(Attributes attributes, String name) {
         String value = attributes.getValue(name);
-        if (value == null && group != null) value = ((GroupDefaults) group.getUserData()).getString(name);
+        return value == null ? 0d : NumberScanner.parseLength(value);
+    }
+
+    protected String getString(String name, String defaultValue) {
+        String value = getValue(name);
+        GroupDefaults defaults = GroupDefaults.of(group);
+        if (value == null && defaults != null) value = defaults.getString(name);
         return value != null ? value : defaultValue;
     }
 
@@ -93,40 +201,132 @@ public class ShapeFactory {
         return setStyle(new RectangleModel(group, getDouble("x"), getDouble("y"), getDouble("width"), getDouble("height"))).getShape();
     }
 
+    /**
+     * @return a {@link Path} or, if {@link #setLazyPaths lazy paths} are enabled, an {@link SVGPath}
+     */
+    public Shape getPathShape() {
+        return lazyPaths ? getSvgPath() : getPath();
+    }
+
+    /**
+     * Parse the path data on {@code pool}.  If lazy paths are enabled, then the {@link SVGPath} is created on the pool
+     * and its geometry is computed there, so that the path data isn't parsed on the application thread when the path is
+     * first displayed.  The path elements for hit-testing are still created when the path is first hit-tested.
+     * @return supplies the shape, waiting for the path data to be parsed if necessary
+     */
+    public Supplier<Shape> getPathShape(ForkJoinPool pool) {
+        if (lazyPaths) {
+            ForkJoinTask<SVGPath> svgPath = pool.submit(this::measureSvgPath);
+            return () -> setStyle(new SvgPathModel(group, svgPath.join(), d -> new PathParser().parse(d))).getShape();
+        }
+        ForkJoinTask<Path> path = pool.submit(this::parsePath);
+        return () -> setStyle(new PathModel(group, path.join())).getShape();
+    }
+
+    /**
+     * @return a new {@link SVGPath} whose geometry has been computed from the path data
+     */
+    private SVGPath measureSvgPath() {
+        long start = metrics.start();
+        String content = getValue("d");
+        SVGPath path = new SVGPath();
+        path.setContent(content == null ? "" : content);
+        path.getBoundsInLocal();
+        metrics.stop(Phase.PATHS, start);
+        return path;
+    }
+
     public Path getPath() {
-        return setStyle(new PathModel(group, new PathParser().parse(attributes.getValue("d")))).getShape();
+        return setStyle(new PathModel(group, parsePath())).getShape();
+    }
+
+    private Path parsePath() {
+        long start = metrics.start();
+        Path path = new PathParser().parse(getValue("d"));
+        metrics.stop(Phase.PATHS, start);
+        return path;
+    }
+
+    public SVGPath getSvgPath() {
+        String content = getValue("d");
+        return setStyle(new SvgPathModel(group, content == null ? "" : content, d -> new PathParser().parse(d))).getShape();
+    }
+
+    /**
+     * Create a shape for an instance of a template, sharing the template's geometry until the instance is edited.
+     */
+    Shape getShape(SvgTemplate template) {
+        switch (template.getName()) {
+            case "path":
+                if (lazyPaths) {
+                    return setStyle(new SvgPathModel(group, template.getContent(), d -> new PathParser().parse(d), template::getPathVisitor)).getShape();
+                }
+                long start = metrics.start();
+                List<PathElement> elements = template.getPathElements();
+                PathVisitor pathVisitor = template.getPathVisitor();
+                metrics.stop(Phase.PATHS, start);
+                return setStyle(new PathModel(group, elements, pathVisitor)).getShape();
+            case "polygon": return setStyle(new PolygonModel(group, getTemplatePoints(template))).getShape();
+            case "polyline": return setStyle(new PolylineModel(group, getTemplatePoints(template))).getShape();
+            default: throw new IllegalArgumentException("No geometry for " + template.getName());
+        }
     }
 
     public Polygon getPolygon() {
         return setStyle(new PolygonModel(group, getPoints())).getShape();
     }
 
+    /**
+     * Parse the points on {@code pool}.
+     * @return supplies the shape, waiting for the points to be parsed if necessary
+     */
+    public Supplier<Polygon> getPolygon(ForkJoinPool pool) {
+        ForkJoinTask<double[]> points = pool.submit(this::getPoints);
+        return () -> setStyle(new PolygonModel(group, points.join())).getShape();
+    }
+
     public Polyline getPolyline() {
         return setStyle(new PolylineModel(group, getPoints())).getShape();
     }
 
+    /**
+     * Parse the points on {@code pool}.
+     * @return supplies the shape, waiting for the points to be parsed if necessary
+     */
+    public Supplier<Polyline> getPolyline(ForkJoinPool pool) {
+        ForkJoinTask<double[]> points = pool.submit(this::getPoints);
+        return () -> setStyle(new PolylineModel(group, points.join())).getShape();
+    }
+
     private double[] getPoints() {
-        String[] xy = attributes.getValue("points").split("(,| +)");
-        double[] points = new double[xy.length];
-        for (int i = 0; i < xy.length; i++) {
-            points[i] = Double.parseDouble(xy[i]);
-        }
+        long start = metrics.start();
+        double[] points = NumberScanner.parseList(getValue("points"));
+        metrics.stop(Phase.PATHS, start);
+        return points;
+    }
+
+    private double[] getTemplatePoints(SvgTemplate template) {
+        long start = metrics.start();
+        double[] points = template.getPoints();
+        metrics.stop(Phase.PATHS, start);
         return points;
     }
 
+    /**
+     * Create a placeholder for the image.  The image is decoded in the background by the {@link ImageStore}.
+     */
     public Optional<ImageView> getImage() {
         String href = attributes.getValue("http://www.w3.org/1999/xlink", "href");
         if (href != null) {
-            Image image;
-            if (href.startsWith("data:image/png;base64,")) {
-                byte[] data = Base64.getMimeDecoder().decode(href.substring(22));
-                image = new Image(new ByteArrayInputStream(data));
-            }
-            else image = new Image(href);
-            ImageModel model = new ImageModel(group, image);
+            long start = metrics.start();
+            ImageModel model = new ImageModel(group, ImageStore.getDefault(), ImageLoader.getDefault().getSource(href));
             model.setX(getDouble("x"));
             model.setY(getDouble("y"));
-            TransformParser.setTransform(model, attributes);
+            model.setWidth(getDouble("width"));
+            model.setHeight(getDouble("height"));
+            TransformParser.setTransform(model, values[TRANSFORM]);
+            model.load();
+            metrics.stop(Phase.IMAGES, start);
             return Optional.of(model.getImageView());
         }
         return Optional.empty();
@@ -138,44 +338,51 @@ public class ShapeFactory {
         text.setY(getDouble("y"));
         setStyle(text);
         String fontFamily = getString("font-family", DEFAULT_FONT_FAMILY);
-        if (Font.getFontNames(fontFamily).size() == 0) fontFamily = DEFAULT_FONT_FAMILY;
         String fontWeight = getString("font-weight", DEFAULT_FONT_WEIGHT);
-        Font font = Font.font(fontFamily, FontWeight.findByName(fontWeight), getFontSize());
-        text.setFont(font);
+        text.setFont(FontResolver.getFont(fontFamily, fontWeight, getFontSize()));
         return text;
     }
 
     private double getFontSize() {
-        String size = getString("font-size", null);
-        if (size != null && size.endsWith("px")) return Double.parseDouble(size.substring(0, size.length()-2));
-        return DEFAULT_FONT_SIZE;
+        double size = NumberScanner.parseLength(getString("font-size", null));
+        return Double.isNaN(size) ? DEFAULT_FONT_SIZE : size;
+    }
+
+    private void setTransform(Shape shape) {
+        long start = metrics.start();
+        TransformParser.setTransform(shape, values[TRANSFORM]);
+        metrics.stop(Phase.TRANSFORMS, start);
+    }
+
+    private void setTransform(ShapeModel<?> model) {
+        long start = metrics.start();
+        TransformParser.setTransform(model, values[TRANSFORM]);
+        metrics.stop(Phase.TRANSFORMS, start);
     }
 
     private <T extends Shape> T setStyle(T shape) {
-        if (this.group != null) {
-            GroupDefaults userData = (GroupDefaults) this.group.getUserData();
-            if (userData != null) {
-                userData.setStroke(shape);
-                userData.setFill(shape);
-            }
+        GroupDefaults defaults = GroupDefaults.of(group);
+        if (defaults != null) {
+            if (values[STROKE] == null) defaults.setStroke(shape);
+            if (values[FILL] == null) defaults.setFill(shape);
         }
-        AttributeParser.setPaint(attributes, "fill", shape::setFill);
-        AttributeParser.setPaint(attributes, "stroke", shape::setStroke);
-        TransformParser.setTransform(shape, attributes);
+        PaintRegistry paints = defaults == null ? null : defaults.getPaints();
+        AttributeParser.setPaint(values[FILL], paints, shape::setFill);
+        AttributeParser.setPaint(values[STROKE], paints, shape::setStroke);
+        setTransform(shape);
         return shape;
     }
 
-    private <T extends ShapeModel> T setStyle(T model) {
-        if (this.group != null) {
-            GroupDefaults userData = (GroupDefaults) this.group.getUserData();
-            if (userData != null) {
-                userData.setStroke(model);
-                userData.setFill(model);
-            }
+    private <T extends ShapeModel<?>> T setStyle(T model) {
+        GroupDefaults defaults = GroupDefaults.of(group);
+        if (defaults != null) {
+            if (values[STROKE] == null) defaults.setStroke(model);
+            if (values[FILL] == null) defaults.setFill(model);
         }
-        AttributeParser.setPaint(attributes, "fill", model::setFill);
-        AttributeParser.setPaint(attributes, "stroke", model::setStroke);
-        TransformParser.setTransform(model, attributes);
+        PaintRegistry paints = defaults == null ? null : defaults.getPaints();
+        AttributeParser.setPaint(values[FILL], paints, model::setFill);
+        AttributeParser.setPaint(values[STROKE], paints, model::setStroke);
+        setTransform(model);
         return model;
     }
 }
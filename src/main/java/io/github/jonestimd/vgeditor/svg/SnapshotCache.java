@@ -0,0 +1,204 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+/**
+ * Stores {@link SceneSnapshot}s of parsed files in a directory, keyed by the SHA-256 hash of the file content and the
+ * {@link SvgParser#OUTPUT_VERSION}.  A modified file, or a file that was parsed by an older version of the parser, has a
+ * different key, so its old snapshot is never used.
+ * <p>
+ * A file that can't be snapshotted (e.g. it contains images) is recorded by its path, size and modification time, so
+ * that it isn't hashed again each time it is opened.
+ */
+public class SnapshotCache {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SUFFIX = ".snapshot";
+    private static final String UNSUPPORTED_SUFFIX = ".unsupported";
+
+    private final Path directory;
+
+    /**
+     * @return a cache in the {@code .vg-editor/snapshots} directory of the user's home
+     */
+    public static SnapshotCache getDefault() {
+        return new SnapshotCache(Paths.get(System.getProperty("user.home"), ".vg-editor", "snapshots"));
+    }
+
+    public SnapshotCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 hash of the parser output version and the file content
+     */
+    public String getKey(Path file) throws IOException {
+        return getKey(file, SvgParser.OUTPUT_VERSION);
+    }
+
+    String getKey(Path file, int parserVersion) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(parserVersion).array());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(file)) {
+            for (int count = input.read(buffer); count >= 0; count = input.read(buffer)) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return true if the file has been {@link #markUnsupported marked} and hasn't been modified since
+     */
+    public boolean isUnsupported(Path file) {
+        try {
+            return Files.isRegularFile(getUnsupportedFile(file));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Record that a file can't be snapshotted, so that {@link #isUnsupported} returns true until the file is modified.
+     */
+    public void markUnsupported(Path file) {
+        try {
+            Files.createDirectories(directory);
+            Files.write(getUnsupportedFile(file), new byte[0]);
+        } catch (IOException ex) {
+            // the file will be hashed again the next time it is opened
+        }
+    }
+
+    /**
+     * @return the marker for the file's path, size and modification time and the parser output version
+     */
+    private Path getUnsupportedFile(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(file.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(Long.BYTES*2 + Integer.BYTES).putLong(Files.size(file))
+                .putLong(Files.getLastModifiedTime(file).toMillis()).putInt(SvgParser.OUTPUT_VERSION).array());
+        return directory.resolve(toHex(digest.digest()) + UNSUPPORTED_SUFFIX);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Add the nodes from a snapshot to {@code root}.  If the snapshot is missing or can't be read, then {@code root}
+     * is left empty and {@code nodeConsumer} is not called.
+     * @param nodeConsumer called with each node in document order, after the snapshot has been read
+     * @return true if the snapshot was loaded
+     */
+    public boolean load(String key, Group root, Consumer<Node> nodeConsumer) {
+        List<Node> nodes = new ArrayList<>();
+        boolean loaded = read(getFile(key), root, nodes);
+        nodes.forEach(nodeConsumer);
+        return loaded;
+    }
+
+    /**
+     * Read a snapshot into {@code root}, deleting it if it is invalid.  Only the reading is guarded, so that an
+     * exception from the caller's node consumer (e.g. a cancelled load) doesn't discard a valid snapshot.
+     */
+    private boolean read(Path file, Group root, List<Node> nodes) {
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+                SceneSnapshot.read(input, root, nodes::add);
+                return true;
+            } catch (IOException | RuntimeException ex) {
+                nodes.clear();
+                root.getChildren().clear();
+                delete(file);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write a snapshot of the children of {@code root}.  Nothing is saved if the diagram contains nodes that aren't
+     * supported by {@link SceneSnapshot}.
+     * @return true if the snapshot was saved
+     */
+    public boolean save(String key, Group root) {
+        Path file = getFile(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                SceneSnapshot.write(root, output);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException ex) {
+            if (temp != null) delete(temp);
+            return false;
+        }
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,200 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.github.jonestimd.vgeditor.collection.LruCache;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * The CSS rules from the {@code style} elements of an SVG document.  The rules are indexed by the id, class or tag in
+ * their selector, so that finding the rules for an element only requires a few map lookups.  Only simple selectors
+ * are supported (e.g. {@code *}, {@code rect}, {@code .outline}, {@code rect.outline}, {@code #title}).  Rules with
+ * combinators or pseudo-classes are ignored.
+ */
+public class StyleSheet {
+    private static final int CACHE_SIZE = 256;
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern SIMPLE_SELECTOR = Pattern.compile("(\\*|[-_a-zA-Z][-_a-zA-Z0-9]*)?((?:[.#][-_a-zA-Z][-_a-zA-Z0-9]*)*)");
+    private static final Pattern QUALIFIER = Pattern.compile("([.#])([-_a-zA-Z][-_a-zA-Z0-9]*)");
+    private static final Comparator<Rule> CASCADE_ORDER = Comparator.<Rule>comparingInt(rule -> rule.specificity).thenComparingInt(rule -> rule.order);
+
+    private final Map<String, List<Rule>> idRules = new HashMap<>();
+    private final Map<String, List<Rule>> classRules = new HashMap<>();
+    private final Map<String, List<Rule>> tagRules = new HashMap<>();
+    private final List<Rule> universalRules = new ArrayList<>();
+    private int ruleCount = 0;
+    /** resolved declarations by tag, class, id and style attribute */
+    private LruCache<String, Map<String, String>> cache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * Parse a style sheet and add its rules to the index.
+     */
+    public void add(CharSequence css) {
+        String text = COMMENT.matcher(css).replaceAll(" ");
+        int start = 0;
+        while (start < text.length()) {
+            int open = text.indexOf('{', start);
+            if (open < 0) break;
+            int close = findBlockEnd(text, open);
+            String selectors = text.substring(start, open).trim();
+            if (!selectors.startsWith("@")) {
+                Map<String, String> declarations = parseDeclarations(text.substring(open+1, Math.min(close, text.length())));
+                for (String selector : selectors.split(",")) {
+                    addRule(selector.trim(), declarations);
+                }
+            }
+            start = close+1;
+        }
+        cache = new LruCache<>(CACHE_SIZE);
+    }
+
+    private static int findBlockEnd(String text, int open) {
+        int depth = 0;
+        for (int i = open; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '{') depth++;
+            else if (ch == '}' && --depth == 0) return i;
+        }
+        return text.length();
+    }
+
+    private void addRule(String selector, Map<String, String> declarations) {
+        Matcher matcher = SIMPLE_SELECTOR.matcher(selector);
+        if (!selector.isEmpty() && matcher.matches()) {
+            String tag = "*".equals(matcher.group(1)) ? null : matcher.group(1);
+            String id = null;
+            List<String> classes = new ArrayList<>();
+            Matcher qualifier = QUALIFIER.matcher(matcher.group(2));
+            while (qualifier.find()) {
+                if ("#".equals(qualifier.group(1))) id = qualifier.group(2);
+                else classes.add(qualifier.group(2));
+            }
+            Rule rule = new Rule(tag, id, classes, declarations, ruleCount++);
+            if (id != null) idRules.computeIfAbsent(id, key -> new ArrayList<>()).add(rule);
+            else if (!classes.isEmpty()) classRules.computeIfAbsent(classes.get(0), key -> new ArrayList<>()).add(rule);
+            else if (tag != null) tagRules.computeIfAbsent(tag, key -> new ArrayList<>()).add(rule);
+            else universalRules.add(rule);
+        }
+    }
+
+    /**
+     * Parse the declarations of a rule or a {@code style} attribute.
+     * @return the property values by name in declaration order
+     */
+    public static Map<String, String> parseDeclarations(String text) {
+        Map<String, String> declarations = new LinkedHashMap<>();
+        for (String declaration : text.split(";")) {
+            int colon = declaration.indexOf(':');
+            if (colon > 0) {
+                String value = declaration.substring(colon+1).trim();
+                if (value.endsWith("!important")) value = value.substring(0, value.length()-10).trim();
+                declarations.put(declaration.substring(0, colon).trim(), value);
+            }
+        }
+        return declarations;
+    }
+
+    /**
+     * Apply the matching rules and the {@code style} attribute to an element's attributes.  The rules override the
+     * presentation attributes and the {@code style} attribute overrides the rules.
+     * @return {@code attributes} if no style applies, otherwise a copy with the resolved values
+     */
+    public Attributes resolve(String tag, Attributes attributes) {
+        String classNames = attributes.getValue("class");
+        String id = attributes.getValue("id");
+        String style = attributes.getValue("style");
+        if (ruleCount == 0 && style == null) return attributes;
+        Map<String, String> declarations = getDeclarations(tag, classNames, id != null && idRules.containsKey(id) ? id : null, style);
+        if (declarations.isEmpty()) return attributes;
+        AttributesImpl resolved = new AttributesImpl(attributes);
+        declarations.forEach((name, value) -> {
+            int index = resolved.getIndex("", name);
+            if (index < 0) resolved.addAttribute("", name, name, "CDATA", value);
+            else resolved.setValue(index, value);
+        });
+        return resolved;
+    }
+
+    private synchronized Map<String, String> getDeclarations(String tag, String classNames, String id, String style) {
+        String key = tag + '\0' + (classNames == null ? "" : classNames) + '\0' + (id == null ? "" : id) + '\0' + (style == null ? "" : style);
+        return cache.get(key, ignored -> computeDeclarations(tag, classNames, id, style));
+    }
+
+    private Map<String, String> computeDeclarations(String tag, String classNames, String id, String style) {
+        List<String> classes = classNames == null ? Collections.emptyList() : splitClasses(classNames);
+        List<Rule> candidates = new ArrayList<>(universalRules);
+        candidates.addAll(tagRules.getOrDefault(tag, Collections.emptyList()));
+        for (String className : classes) {
+            candidates.addAll(classRules.getOrDefault(className, Collections.emptyList()));
+        }
+        if (id != null) candidates.addAll(idRules.getOrDefault(id, Collections.emptyList()));
+        candidates.sort(CASCADE_ORDER);
+        Map<String, String> declarations = new LinkedHashMap<>();
+        for (Rule rule : candidates) {
+            if (rule.matches(tag, id, classes)) declarations.putAll(rule.declarations);
+        }
+        if (style != null) declarations.putAll(parseDeclarations(style));
+        return Collections.unmodifiableMap(declarations);
+    }
+
+    private static List<String> splitClasses(String classNames) {
+        List<String> classes = new ArrayList<>();
+        for (String className : classNames.trim().split("\\s+")) {
+            if (!className.isEmpty() && !classes.contains(className)) classes.add(className);
+        }
+        return classes;
+    }
+
+    private static class Rule {
+        private final String tag;
+        private final String id;
+        private final List<String> classes;
+        private final Map<String, String> declarations;
+        private final int specificity;
+        private final int order;
+
+        public Rule(String tag, String id, List<String> classes, Map<String, String> declarations, int order) {
+            this.tag = tag;
+            this.id = id;
+            this.classes = classes;
+            this.declarations = declarations;
+            this.specificity = (id == null ? 0 : 10000) + classes.size()*100 + (tag == null ? 0 : 1);
+            this.order = order;
+        }
+
+        public boolean matches(String tag, String id, List<String> classes) {
+            return (this.tag == null || this.tag.equals(tag)) && (this.id == null || this.id.equals(id))
+                    && classes.containsAll(this.classes);
+        }
+    }
+}
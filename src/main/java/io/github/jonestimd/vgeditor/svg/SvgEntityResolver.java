@@ -0,0 +1,77 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+/**
+ * Resolves the SVG 1.0 and 1.1 DTDs from a local catalog instead of retrieving them from the W3C.  The parser doesn't
+ * validate, so the local DTD only declares the namespace defaults for the {@code svg} element.
+ */
+public class SvgEntityResolver implements EntityResolver {
+    /** resolves the SVG DTDs locally and any other external entities using the default resolution */
+    public static final SvgEntityResolver CATALOG = new SvgEntityResolver(false);
+    /** resolves the SVG DTDs locally and ignores any other external entities */
+    public static final SvgEntityResolver OFFLINE = new SvgEntityResolver(true);
+
+    private static final String SVG_DTD = "svg.dtd";
+    private static final Map<String, String> PUBLIC_IDS = ImmutableMap.<String, String>builder()
+            .put("-//W3C//DTD SVG 20010904//EN", SVG_DTD)
+            .put("-//W3C//DTD SVG 1.0//EN", SVG_DTD)
+            .put("-//W3C//DTD SVG 1.1//EN", SVG_DTD)
+            .put("-//W3C//DTD SVG 1.1 Basic//EN", SVG_DTD)
+            .put("-//W3C//DTD SVG 1.1 Tiny//EN", SVG_DTD)
+            .build();
+    private static final Map<String, String> SYSTEM_IDS = ImmutableMap.<String, String>builder()
+            .put("http://www.w3.org/TR/2001/REC-SVG-20010904/DTD/svg10.dtd", SVG_DTD)
+            .put("http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd", SVG_DTD)
+            .put("http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-basic.dtd", SVG_DTD)
+            .put("http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-tiny.dtd", SVG_DTD)
+            .put("http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-flat.dtd", SVG_DTD)
+            .put("http://www.w3.org/Graphics/SVG/1.1/DTD/svg11-flat-20030114.dtd", SVG_DTD)
+            .build();
+
+    private final boolean ignoreExternal;
+
+    private SvgEntityResolver(boolean ignoreExternal) {
+        this.ignoreExternal = ignoreExternal;
+    }
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) throws IOException {
+        String resource = publicId == null ? null : PUBLIC_IDS.get(publicId);
+        if (resource == null && systemId != null) resource = SYSTEM_IDS.get(systemId.replaceFirst("^https:", "http:"));
+        if (resource != null) {
+            InputSource source = new InputSource(getClass().getResourceAsStream(resource));
+            source.setPublicId(publicId);
+            source.setSystemId(systemId);
+            return source;
+        }
+        return ignoreExternal ? new InputSource(new StringReader("")) : null;
+    }
+}
@@ -0,0 +1,190 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import io.github.jonestimd.vgeditor.scene.PulseExecutor;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
+import javafx.concurrent.Task;
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+/**
+ * Loads an SVG file without blocking the JavaFX application thread.  The file is parsed on the task's thread into a
+ * detached {@link Group}.  The parsed nodes are then attached to the diagram in document order, one bounded batch per
+ * pulse.  Progress is reported while attaching.  Cancelling the task stops the parser or removes any nodes that have
+ * already been attached.  If a {@link SnapshotCache} is provided, then the diagram is rebuilt from the file's snapshot
+ * when there is one, otherwise a snapshot is saved after parsing the file.  A file that can't be snapshotted is recorded
+ * in the cache, so that it isn't hashed again until it is modified.  The time spent in each phase of the load is
+ * recorded in the task's {@link LoadMetrics}.
+ */
+public class SvgLoadTask extends Task<Void> {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final File file;
+    private final Group diagram;
+    private final int batchSize;
+    private final SnapshotCache snapshotCache;
+    private final Executor pulseExecutor;
+    private final LoadMetrics metrics = new LoadMetrics();
+    private final Group root = new Group();
+    /** the parsed nodes in document order */
+    private final List<Node> nodes = new ArrayList<>();
+    /** the parent of each parsed node (top level nodes use the diagram) */
+    private final List<Group> parents = new ArrayList<>();
+
+    public SvgLoadTask(File file, Group diagram) {
+        this(file, diagram, null);
+    }
+
+    public SvgLoadTask(File file, Group diagram, SnapshotCache snapshotCache) {
+        this(file, diagram, DEFAULT_BATCH_SIZE, snapshotCache);
+    }
+
+    /**
+     * @param file the SVG file to load
+     * @param diagram the group that will receive the top level nodes
+     * @param batchSize the maximum number of nodes to attach per pulse
+     * @param snapshotCache the cache of parsed files (may be null)
+     */
+    public SvgLoadTask(File file, Group diagram, int batchSize, SnapshotCache snapshotCache) {
+        this(file, diagram, batchSize, snapshotCache, new PulseExecutor());
+    }
+
+    /**
+     * @param pulseExecutor the executor used to attach each batch of nodes on the JavaFX application thread
+     */
+    SvgLoadTask(File file, Group diagram, int batchSize, SnapshotCache snapshotCache, Executor pulseExecutor) {
+        this.file = file;
+        this.diagram = diagram;
+        this.batchSize = batchSize;
+        this.snapshotCache = snapshotCache;
+        this.pulseExecutor = pulseExecutor;
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        metrics.begin();
+        String snapshotKey = null;
+        boolean restored = false;
+        if (snapshotCache != null && !snapshotCache.isUnsupported(file.toPath())) {
+            long startTime = metrics.start();
+            snapshotKey = snapshotCache.getKey(file.toPath());
+            restored = snapshotCache.load(snapshotKey, root, this::addNode);
+            metrics.stop(Phase.SNAPSHOT, startTime);
+        }
+        if (!restored) {
+            new SvgParser(this::addNode, SvgEntityResolver.CATALOG, ForkJoinPool.commonPool(), metrics, this::isCancelled)
+                    .parse(file, root);
+            if (snapshotKey != null) {
+                long startTime = metrics.start();
+                if (!snapshotCache.save(snapshotKey, root)) snapshotCache.markUnsupported(file.toPath());
+                metrics.stop(Phase.SNAPSHOT, startTime);
+            }
+        }
+        detachNodes();
+        CountDownLatch attached = new CountDownLatch(1);
+        pulseExecutor.execute(new Attacher(attached));
+        attached.await();
+        return null;
+    }
+
+    /**
+     * @return the time spent in each phase of loading the file (complete when the task has finished)
+     */
+    public LoadMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void addNode(Node node) {
+        if (isCancelled()) throw new CancellationException();
+        nodes.add(node);
+        parents.add(node.getParent() == root ? diagram : (Group) node.getParent());
+    }
+
+    /**
+     * Remove the parsed nodes from their parents so that they can be attached to the scene in batches.
+     */
+    private void detachNodes() {
+        root.getChildren().clear();
+        for (Node node : nodes) {
+            if (node instanceof Group) ((Group) node).getChildren().clear();
+        }
+    }
+
+    /**
+     * Attaches a batch of nodes on each pulse.  Consecutive nodes with the same parent are added with a single list
+     * change.
+     */
+    private class Attacher implements Runnable {
+        private final CountDownLatch done;
+        private int next = 0;
+
+        public Attacher(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                removeAttached();
+                finish();
+            }
+            else {
+                long startTime = metrics.start();
+                int end = Math.min(next+batchSize, nodes.size());
+                while (next < end) {
+                    Group parent = parents.get(next);
+                    int start = next;
+                    while (next < end && parents.get(next) == parent) next++;
+                    parent.getChildren().addAll(nodes.subList(start, next));
+                }
+                metrics.stop(Phase.ATTACH, startTime);
+                updateProgress(next, nodes.size());
+                if (next == nodes.size()) finish();
+                else pulseExecutor.execute(this);
+            }
+        }
+
+        private void removeAttached() {
+            Set<Node> topLevel = new HashSet<>();
+            for (int i = 0; i < next; i++) {
+                if (parents.get(i) == diagram) topLevel.add(nodes.get(i));
+            }
+            diagram.getChildren().removeAll(topLevel);
+        }
+
+        private void finish() {
+            metrics.finish();
+            done.countDown();
+        }
+    }
+}
@@ -21,111 +21,624 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.svg;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CountingInputStream;
 import io.github.jonestimd.vgeditor.scene.model.GroupDefaults;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
 import javafx.scene.Group;
 import javafx.scene.Node;
+import javafx.scene.shape.Shape;
 import javafx.scene.text.Text;
+import javafx.scene.transform.Translate;
 import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 public class SvgParser {
+    public static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+    public static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+    /** increment when a change to the parser changes the nodes it creates, so that cached snapshots are re-parsed */
+    static final int OUTPUT_VERSION = 3;
+    /** limits the nesting of {@code use} elements, to stop reference cycles */
+    private static final int MAX_USE_DEPTH = 32;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_POOLED_PARSERS = 4;
+    /** the number of steps that can wait for their geometry before the finished steps are run */
+    private static final int MAX_PENDING_STEPS = 256;
+    private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+    private static final BlockingQueue<SAXParser> PARSER_POOL = new ArrayBlockingQueue<>(MAX_POOLED_PARSERS);
+
+    static {
+        PARSER_FACTORY.setNamespaceAware(true);
+    }
+
     private final Consumer<Node> nodeConsumer;
+    private final EntityResolver entityResolver;
+    private final ForkJoinPool geometryPool;
+    private final LoadMetrics metrics;
+    private final BooleanSupplier cancelled;
 
     public SvgParser() {
         this(node -> {});
     }
 
+    /**
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     */
     public SvgParser(Consumer<Node> nodeConsumer) {
+        this(nodeConsumer, SvgEntityResolver.CATALOG);
+    }
+
+    /**
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     * @param entityResolver resolves the DTD and external entities (use {@link SvgEntityResolver#OFFLINE} to skip
+     *     external DTDs that aren't in the local catalog)
+     */
+    public SvgParser(Consumer<Node> nodeConsumer, EntityResolver entityResolver) {
+        this(nodeConsumer, entityResolver, null);
+    }
+
+    /**
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     * @param entityResolver resolves the DTD and external entities (use {@link SvgEntityResolver#OFFLINE} to skip
+     *     external DTDs that aren't in the local catalog)
+     * @param geometryPool the pool used to parse path data and point lists while the document is being read (null to
+     *     parse them on the calling thread).  The nodes are still created on the calling thread in document order.
+     */
+    public SvgParser(Consumer<Node> nodeConsumer, EntityResolver entityResolver, ForkJoinPool geometryPool) {
+        this(nodeConsumer, entityResolver, geometryPool, LoadMetrics.DISABLED);
+    }
+
+    /**
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     * @param entityResolver resolves the DTD and external entities (use {@link SvgEntityResolver#OFFLINE} to skip
+     *     external DTDs that aren't in the local catalog)
+     * @param geometryPool the pool used to parse path data and point lists while the document is being read (null to
+     *     parse them on the calling thread).  The nodes are still created on the calling thread in document order.
+     * @param metrics receives the time spent in each phase of parsing and the element counts
+     */
+    public SvgParser(Consumer<Node> nodeConsumer, EntityResolver entityResolver, ForkJoinPool geometryPool, LoadMetrics metrics) {
+        this(nodeConsumer, entityResolver, geometryPool, metrics, () -> false);
+    }
+
+    /**
+     * @param nodeConsumer called with each node in document order, after it has been added to its parent
+     * @param entityResolver resolves the DTD and external entities (use {@link SvgEntityResolver#OFFLINE} to skip
+     *     external DTDs that aren't in the local catalog)
+     * @param geometryPool the pool used to parse path data and point lists while the document is being read (null to
+     *     parse them on the calling thread).  The nodes are still created on the calling thread in document order.
+     * @param metrics receives the time spent in each phase of parsing and the element counts
+     * @param cancelled checked at the start of each element.  Parsing stops with a {@link CancellationException} when
+     *     it returns true.
+     */
+    public SvgParser(Consumer<Node> nodeConsumer, EntityResolver entityResolver, ForkJoinPool geometryPool, LoadMetrics metrics,
+            BooleanSupplier cancelled) {
         this.nodeConsumer = nodeConsumer;
+        this.entityResolver = entityResolver;
+        this.geometryPool = geometryPool;
+        this.metrics = metrics;
+        this.cancelled = cancelled;
     }
 
     public void parse(File file, Group diagram) throws IOException, ParserConfigurationException, SAXException {
-        SvgSaxHandler handler = new SvgSaxHandler(diagram);
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.newSAXParser().parse(file, handler);
+        parse(file.toPath(), diagram);
+    }
+
+    /**
+     * Parse an SVG file.  Gzip compressed files (i.e. {@code .svgz}) are decompressed while parsing.
+     */
+    public void parse(Path path, Group diagram) throws IOException, ParserConfigurationException, SAXException {
+        try (InputStream input = Files.newInputStream(path)) {
+            parse(input, path.toUri().toString(), diagram);
+        }
+    }
+
+    /**
+     * Parse an SVG document from a channel.  Gzip compressed content is decompressed while parsing.  The channel is
+     * not closed.
+     */
+    public void parse(ReadableByteChannel channel, Group diagram) throws IOException, ParserConfigurationException, SAXException {
+        parse(new NonClosingInputStream(Channels.newInputStream(channel)), null, diagram);
+    }
+
+    /**
+     * Parse an SVG document from a stream.  Gzip compressed content is decompressed while parsing.  The stream is not
+     * closed.
+     */
+    public void parse(InputStream input, Group diagram) throws IOException, ParserConfigurationException, SAXException {
+        parse(new NonClosingInputStream(input), null, diagram);
+    }
+
+    private void parse(InputStream input, String systemId, Group diagram) throws IOException, ParserConfigurationException, SAXException {
+        CountingInputStream counter = new CountingInputStream(input);
+        InputSource source = new InputSource(decompress(new BufferedInputStream(counter, BUFFER_SIZE)));
+        source.setSystemId(systemId);
+        SAXParser parser = borrowParser();
+        try {
+            metrics.beginParse();
+            parser.parse(source, new SvgSaxHandler(diagram));
+            metrics.endParse(counter.getCount());
+        } finally {
+            releaseParser(parser);
+        }
+    }
+
+    /**
+     * @return a stream that decompresses the input if it starts with the gzip header, otherwise {@code input}
+     */
+    static InputStream decompress(BufferedInputStream input) throws IOException {
+        input.mark(2);
+        int magic = input.read() | input.read() << 8;
+        input.reset();
+        return magic == GZIPInputStream.GZIP_MAGIC ? new BufferedInputStream(new GZIPInputStream(input, BUFFER_SIZE), BUFFER_SIZE) : input;
+    }
+
+    /**
+     * Keeps the XML parser from closing a stream or channel that belongs to the caller.
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+        public NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static SAXParser borrowParser() throws ParserConfigurationException, SAXException {
+        SAXParser parser = PARSER_POOL.poll();
+        if (parser == null) {
+            synchronized (PARSER_FACTORY) {
+                parser = PARSER_FACTORY.newSAXParser();
+            }
+        }
+        return parser;
+    }
+
+    private static void releaseParser(SAXParser parser) {
+        parser.reset();
+        PARSER_POOL.offer(parser);
     }
 
+    /**
+     * Creates the nodes for the SVG elements.  When a geometry pool is provided, the nodes are created by a list of
+     * steps that is run when it reaches {@link #MAX_PENDING_STEPS} and at the end of the document, so that the path data
+     * and point lists can be parsed in parallel while the document is being read.  Otherwise, each step is run as soon as
+     * its element is read.
+     * <p>
+     * The content of {@code defs} and {@code symbol} elements is recorded as {@link SvgTemplate}s.  A {@code use}
+     * element replays its template into a new group, copying the template's parsed geometry.  A {@code use} element
+     * that refers to a template defined later in the document is replayed at the end of the document.
+     * <p>
+     * The rules from {@code style} elements and {@code style} attributes are applied to the element attributes by a
+     * {@link StyleSheet} before the nodes are created.
+     */
     private class SvgSaxHandler extends DefaultHandler {
+        private final Deque<Group> groups = new ArrayDeque<>();
+        private final List<Runnable> steps = new ArrayList<>();
+        private final StringBuilder textBuffer = new StringBuilder();
         private Group group;
-        private Text text = null;
-
-        private Map<String, Consumer<Attributes>> tagHandlers = ImmutableMap.<String, Consumer<Attributes>>builder()
-                .put("svg", this::addGroup)
-                .put("g", this::addGroup)
-                .put("line", attributes -> new ShapeFactory(attributes, group).getLine())
-                .put("circle", attributes -> new ShapeFactory(attributes, group).getCircle())
-                .put("ellipse", attributes -> new ShapeFactory(attributes, group).getEllipse())
-                .put("rect", attributes -> new ShapeFactory(attributes, group).getRect())
-                .put("path", attributes -> new ShapeFactory(attributes, group).getPath())
-                .put("polygon", attributes -> new ShapeFactory(attributes, group).getPolygon())
-                .put("polyline", attributes -> new ShapeFactory(attributes, group).getPolyline())
-                .put("image", attributes -> new ShapeFactory(attributes, group).getImage())
-                .build();
-
-        private boolean inDefs = false;
+        /** the attributes of the current text element (null if not in a text element) */
+        private AttributesImpl textAttributes;
+        /** the attributes of the current run of text (i.e. the text element or a positioned tspan) */
+        private Attributes runAttributes;
+        /** the run attributes to restore at the end of each open tspan */
+        private final Deque<Attributes> spanAttributes = new ArrayDeque<>();
+        /** the last node created for the current text element (null if none) */
+        private Text lastRun;
+        /** the run that the current run continues after (null if the current run has its own position) */
+        private Text continuedRun;
+        /** true if no text has been added to the current line (i.e. since the text element or a positioned tspan) */
+        private boolean lineStart;
+        /** true if whitespace has been read since the last text was added to the line */
+        private boolean pendingSpace;
+
+        /** reused for shapes that are created while their element is being read */
+        private final ShapeFactory factory = new ShapeFactory().setMetrics(metrics);
+        /** the factories that can be reused for shapes that are created by a step */
+        private final Deque<ShapeFactory> idleFactories = new ArrayDeque<>();
+        /** the factories that are used by the pending steps */
+        private final List<ShapeFactory> stepFactories = new ArrayList<>();
+
+        /** the templates that can be instantiated by {@code use} elements */
+        private final Map<String, SvgTemplate> templates = new HashMap<>();
+        /** the templates that are being recorded (i.e. in a {@code defs} or {@code symbol} element) */
+        private final Deque<SvgTemplate> recording = new ArrayDeque<>();
+        private int useDepth = 0;
+        /** the groups of {@code use} elements that refer to templates that hadn't been defined, with the template ids */
+        private final Map<Group, String> pendingUses = new LinkedHashMap<>();
+        private boolean resolvingUses = false;
+        private final StyleSheet styleSheet = new StyleSheet();
+        private final PaintRegistry paints = new PaintRegistry(styleSheet);
+        /** the content of the current {@code style} element (null if not in a style element) */
+        private StringBuilder styleBuffer;
 
         public SvgSaxHandler(Group diagram) {
             this.group = diagram;
         }
 
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) throws IOException, SAXException {
+            return entityResolver.resolveEntity(publicId, systemId);
+        }
+
         @Override
         public void startElement(String uri, String localName, String qName, Attributes attributes) {
-            if (uri.equals("http://www.w3.org/2000/svg")) {
-                if ("defs".equals(qName)) inDefs = true;
-                else if (!inDefs) {
-                    if (tagHandlers.containsKey(qName)) {
-                        tagHandlers.get(qName).accept(attributes);
-                    }
-                    else if ("text".equals(qName)) {
-                        text = new ShapeFactory(attributes, group).getText();
-                        addNode(text);
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+            long start = metrics.start();
+            if (uri.equals(SVG_NAMESPACE)) {
+                metrics.countElement(qName);
+                ElementKind kind = ElementKind.of(qName);
+                if (kind == ElementKind.STYLE) styleBuffer = new StringBuilder();
+                else if (!recording.isEmpty() || kind.isRecorded()) {
+                    SvgTemplate template = new SvgTemplate(qName, new AttributesImpl(attributes));
+                    if (!recording.isEmpty()) recording.peek().addChild(template);
+                    String id = attributes.getValue("id");
+                    if (id != null) {
+                        templates.put(id, template);
+                        if (kind.isGradient()) paints.define(id, template);
                     }
+                    recording.push(template);
                 }
+                else if (kind != ElementKind.OTHER) startElement(kind, attributes, null);
+            }
+            metrics.stopHandler(start);
+        }
+
+        /**
+         * @param template the template being instantiated (null if the element is from the document)
+         */
+        private void startElement(ElementKind kind, Attributes attributes, SvgTemplate template) {
+            long start = metrics.start();
+            attributes = styleSheet.resolve(kind.getElementName(), attributes);
+            metrics.stop(Phase.STYLES, start);
+            if (kind.isGroup()) addGroup(attributes);
+            else if (template != null && template.hasGeometry()) addTemplateShape(attributes, template);
+            else {
+                switch (kind) {
+                    case USE: addUse(attributes); break;
+                    case LINE: case CIRCLE: case ELLIPSE: case RECT: case PATH: case POLYGON: case POLYLINE:
+                        addShape(kind, attributes);
+                        break;
+                    case IMAGE: addImage(attributes); break;
+                    case TEXT:
+                        textAttributes = new AttributesImpl(attributes);
+                        runAttributes = textAttributes;
+                        startLine();
+                        break;
+                    case TSPAN:
+                        if (textAttributes != null) startTextSpan(attributes);
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Create the shape for an element.  When the shape is created while the element is being read, the reused
+         * factory is used.  Otherwise, the attributes are copied to a pooled factory and the path data or points are
+         * parsed on the geometry pool.
+         */
+        private void addShape(ElementKind kind, Attributes attributes) {
+            if (geometryPool == null) nodeConsumer.accept(createShape(kind, factory.reset(attributes, group)));
+            else {
+                ShapeFactory deferred = getStepFactory(attributes);
+                switch (kind) {
+                    case PATH: addShape(deferred.getPathShape(geometryPool)); break;
+                    case POLYGON: addShape(deferred.getPolygon(geometryPool)); break;
+                    case POLYLINE: addShape(deferred.getPolyline(geometryPool)); break;
+                    default: addStep(() -> nodeConsumer.accept(createShape(kind, deferred)));
+                }
+            }
+        }
+
+        private Shape createShape(ElementKind kind, ShapeFactory factory) {
+            switch (kind) {
+                case LINE: return factory.getLine();
+                case CIRCLE: return factory.getCircle();
+                case ELLIPSE: return factory.getEllipse();
+                case RECT: return factory.getRect();
+                case PATH: return factory.getPathShape();
+                case POLYGON: return factory.getPolygon();
+                case POLYLINE: return factory.getPolyline();
+                default: throw new IllegalArgumentException("Not a shape: " + kind);
+            }
+        }
+
+        private void addTemplateShape(Attributes attributes, SvgTemplate template) {
+            if (geometryPool == null) nodeConsumer.accept(factory.reset(attributes, group).getShape(template));
+            else {
+                ShapeFactory deferred = getStepFactory(attributes);
+                addShape(() -> deferred.getShape(template));
+            }
+        }
+
+        private void addImage(Attributes attributes) {
+            if (geometryPool == null) factory.reset(attributes, group).getImage().ifPresent(nodeConsumer);
+            else {
+                ShapeFactory deferred = getStepFactory(attributes);
+                addStep(() -> deferred.getImage().ifPresent(nodeConsumer));
             }
         }
 
         @Override
         public void endElement(String uri, String localName, String qName) {
-            if (uri.equals("http://www.w3.org/2000/svg")) {
-                if ("defs".equals(qName)) inDefs = false;
-                else if (!inDefs) {
-                    if ("g".equals(qName)) this.group = (Group) this.group.getParent();
-                    else if ("text".equals(qName)) this.text = null;
+            long start = metrics.start();
+            if (uri.equals(SVG_NAMESPACE)) {
+                ElementKind kind = ElementKind.of(qName);
+                if (kind == ElementKind.STYLE) {
+                    styleSheet.add(styleBuffer);
+                    styleBuffer = null;
+                    metrics.stop(Phase.STYLES, start);
+                }
+                else if (!recording.isEmpty()) recording.pop();
+                else endElement(kind);
+            }
+            metrics.stopHandler(start);
+        }
+
+        private void endElement(ElementKind kind) {
+            if (kind.isGroup()) this.group = groups.pop();
+            else if (kind == ElementKind.TSPAN) {
+                if (textAttributes != null) endTextSpan();
+            }
+            else if (kind == ElementKind.TEXT) {
+                flushText();
+                textAttributes = null;
+                runAttributes = null;
+                lastRun = null;
+                continuedRun = null;
+                spanAttributes.clear();
+            }
+        }
+
+        /**
+         * Add a group for the {@code use} element and replay its template into the group.  If the template hasn't been
+         * defined yet, then the group is left empty until the end of the document.
+         */
+        private void addUse(Attributes attributes) {
+            String href = attributes.getValue(XLINK_NAMESPACE, "href");
+            if (href == null) href = attributes.getValue("href");
+            if (href != null && href.startsWith("#") && useDepth < MAX_USE_DEPTH) {
+                String id = href.substring(1);
+                SvgTemplate template = templates.get(id);
+                if (template != null || !resolvingUses) {
+                    addGroup(attributes);
+                    double x = ShapeFactory.getLength(attributes, "x");
+                    double y = ShapeFactory.getLength(attributes, "y");
+                    if (x != 0d || y != 0d) group.getTransforms().add(new Translate(x, y));
+                    if (template == null) pendingUses.put(group, id);
+                    else instantiateUse(template);
+                    this.group = groups.pop();
                 }
             }
         }
 
+        private void instantiateUse(SvgTemplate template) {
+            useDepth++;
+            instantiate(template);
+            useDepth--;
+        }
+
+        /**
+         * Replay the templates of the {@code use} elements that were read before their templates were defined.
+         * References to templates that are never defined leave the group empty.
+         */
+        private void resolveUses() {
+            resolvingUses = true;
+            Group parent = this.group;
+            pendingUses.forEach((use, id) -> {
+                SvgTemplate template = templates.get(id);
+                if (template != null) {
+                    this.group = use;
+                    instantiateUse(template);
+                }
+            });
+            this.group = parent;
+            pendingUses.clear();
+        }
+
+        private void instantiate(SvgTemplate template) {
+            ElementKind kind = ElementKind.of(template.getName());
+            startElement(kind, template.getAttributes(), template);
+            for (Object child : template.getChildren()) {
+                if (child instanceof SvgTemplate) instantiate((SvgTemplate) child);
+                else characters(child.toString());
+            }
+            endElement(kind);
+        }
+
         @Override
         public void characters(char[] ch, int start, int length) {
-            if (this.text != null) {
-                StringBuilder buffer = new StringBuilder(text.getText());
-                text.setText(buffer.append(new String(ch, start, length)).toString());
+            long startTime = metrics.start();
+            if (styleBuffer != null) styleBuffer.append(ch, start, length);
+            else if (!recording.isEmpty()) recording.peek().addText(ch, start, length);
+            else if (textAttributes != null) textBuffer.append(ch, start, length);
+            metrics.stopHandler(startTime);
+        }
+
+        private void characters(String text) {
+            if (textAttributes != null) textBuffer.append(text);
+        }
+
+        /**
+         * A tspan with a position starts a new run of text that uses the attributes of the text element overridden by
+         * the attributes of the tspan.  The content of any other tspan is appended to the current run.
+         */
+        private void startTextSpan(Attributes attributes) {
+            spanAttributes.push(runAttributes);
+            if (attributes.getValue("x") != null || attributes.getValue("y") != null) {
+                flushText();
+                runAttributes = merge(textAttributes, attributes);
+                continuedRun = null;
+                startLine();
+            }
+        }
+
+        /**
+         * Restore the run attributes from before the tspan.  If the tspan started a new run, then the text that follows
+         * it continues on the same line after the tspan's run, using the restored attributes.
+         */
+        private void endTextSpan() {
+            Attributes previous = spanAttributes.pop();
+            if (previous != runAttributes) {
+                flushText();
+                runAttributes = previous;
+                continuedRun = lastRun;
             }
         }
 
+        /**
+         * @return the attributes for a run that starts at the end of {@code run} (the run is measured, so this is only
+         *     used for runs that contain text)
+         */
+        private Attributes continueAfter(Text run) {
+            AttributesImpl position = new AttributesImpl();
+            position.addAttribute("", "x", "x", "CDATA", Double.toString(run.getX()+run.getLayoutBounds().getWidth()));
+            position.addAttribute("", "y", "y", "CDATA", Double.toString(run.getY()));
+            return merge(runAttributes, position);
+        }
+
+        private AttributesImpl merge(Attributes attributes, Attributes overrides) {
+            AttributesImpl merged = new AttributesImpl(attributes);
+            for (int i = 0; i < overrides.getLength(); i++) {
+                int index = merged.getIndex(overrides.getURI(i), overrides.getLocalName(i));
+                if (index < 0) {
+                    merged.addAttribute(overrides.getURI(i), overrides.getLocalName(i), overrides.getQName(i),
+                            overrides.getType(i), overrides.getValue(i));
+                }
+                else merged.setValue(index, overrides.getValue(i));
+            }
+            return merged;
+        }
+
+        private void startLine() {
+            lineStart = true;
+            pendingSpace = false;
+        }
+
+        /**
+         * Create a {@link Text} node for the current run, unless it only contains whitespace.
+         */
+        private void flushText() {
+            String content = collapseWhitespace();
+            if (!content.isEmpty()) {
+                Attributes attributes = continuedRun == null ? runAttributes : continueAfter(continuedRun);
+                Text text = factory.reset(attributes, group).getText();
+                text.setText(content);
+                addNode(group, text);
+                lastRun = text;
+            }
+            textBuffer.setLength(0);
+        }
+
+        /**
+         * Apply the SVG whitespace rules to the current run: newlines are removed, tabs are converted to spaces, spaces
+         * at the start and end of a line are dropped and each run of spaces is collapsed to a single space.  Spaces at
+         * the end of the run are kept pending until more text is added to the line, so that the space between a tspan
+         * and the text that follows it starts the next run.
+         */
+        private String collapseWhitespace() {
+            StringBuilder text = new StringBuilder(textBuffer.length());
+            for (int i = 0; i < textBuffer.length(); i++) {
+                char c = textBuffer.charAt(i);
+                if (c == ' ' || c == '\t') pendingSpace = true;
+                else if (c != '\n' && c != '\r') {
+                    if (pendingSpace && !lineStart) text.append(' ');
+                    text.append(c);
+                    pendingSpace = false;
+                    lineStart = false;
+                }
+            }
+            return text.toString();
+        }
+
+        @Override
+        public void endDocument() {
+            long start = metrics.start();
+            resolveUses();
+            runSteps();
+            paints.resolveForwardReferences();
+            metrics.stopHandler(start);
+        }
+
+        private void addStep(Runnable step) {
+            if (geometryPool == null) step.run();
+            else {
+                steps.add(step);
+                if (steps.size() >= MAX_PENDING_STEPS) runSteps();
+            }
+        }
+
+        private void runSteps() {
+            steps.forEach(Runnable::run);
+            steps.clear();
+            idleFactories.addAll(stepFactories);
+            stepFactories.clear();
+        }
+
+        /**
+         * @return a factory for a shape that is created by a step, which is returned to the pool when the steps are run
+         */
+        private ShapeFactory getStepFactory(Attributes attributes) {
+            ShapeFactory stepFactory = idleFactories.isEmpty() ? new ShapeFactory().setMetrics(metrics) : idleFactories.pop();
+            stepFactories.add(stepFactory);
+            return stepFactory.resetCopy(attributes, group);
+        }
+
+        private void addShape(Supplier<? extends Shape> shape) {
+            addStep(() -> nodeConsumer.accept(shape.get()));
+        }
+
         private void addGroup(Attributes attributes) {
             Group group = new Group();
+            long start = metrics.start();
             TransformParser.setTransform(group, attributes);
-            group.setUserData(new GroupDefaults(group, attributes));
-            this.group.getChildren().add(group);
+            metrics.stop(Phase.TRANSFORMS, start);
+            group.setUserData(new GroupDefaults(GroupDefaults.of(this.group), attributes, paints));
+            addNode(this.group, group);
+            groups.push(this.group);
             this.group = group;
-            nodeConsumer.accept(group);
         }
 
-        private void addNode(Node node) {
-            group.getChildren().add(node);
-            nodeConsumer.accept(node);
+        private void addNode(Group parent, Node node) {
+            addStep(() -> {
+                long start = metrics.start();
+                parent.getChildren().add(node);
+                metrics.stop(Phase.ATTACH, start);
+                nodeConsumer.accept(node);
+            });
         }
     }
 }
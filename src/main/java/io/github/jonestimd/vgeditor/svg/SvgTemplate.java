@@ -0,0 +1,109 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.jonestimd.vgeditor.scene.model.path.PathVisitor;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+import org.xml.sax.Attributes;
+
+/**
+ * An element recorded from the {@code defs} or a {@code symbol} of an SVG document, so that it can be instantiated by
+ * {@code use} elements.  The path data and point lists are parsed once, when first instantiated.  The instances share
+ * the parsed path elements and their hit-test data until an instance is edited.
+ */
+class SvgTemplate {
+    private final String name;
+    private final Attributes attributes;
+    /** the child templates and the text content (as {@link StringBuilder}s) in document order */
+    private final List<Object> children = new ArrayList<>();
+    private Path path;
+    private PathVisitor pathVisitor;
+    private double[] points;
+
+    public SvgTemplate(String name, Attributes attributes) {
+        this.name = name;
+        this.attributes = attributes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Attributes getAttributes() {
+        return attributes;
+    }
+
+    public List<Object> getChildren() {
+        return children;
+    }
+
+    public void addChild(SvgTemplate child) {
+        children.add(child);
+    }
+
+    public void addText(char[] ch, int start, int length) {
+        Object last = children.isEmpty() ? null : children.get(children.size()-1);
+        if (last instanceof StringBuilder) ((StringBuilder) last).append(ch, start, length);
+        else children.add(new StringBuilder().append(ch, start, length));
+    }
+
+    /**
+     * @return true if the template has geometry that can be shared by its instances
+     */
+    public boolean hasGeometry() {
+        return "path".equals(name) || "polygon".equals(name) || "polyline".equals(name);
+    }
+
+    public String getContent() {
+        String content = attributes.getValue("d");
+        return content == null ? "" : content;
+    }
+
+    private synchronized Path getPath() {
+        if (path == null) path = new PathParser().parse(getContent());
+        return path;
+    }
+
+    /**
+     * @return the template's path elements, which are shared by the instances until they are edited
+     */
+    public List<PathElement> getPathElements() {
+        return getPath().getElements();
+    }
+
+    /**
+     * @return the visitor used to hit-test the instances that haven't been edited
+     */
+    public synchronized PathVisitor getPathVisitor() {
+        if (pathVisitor == null) pathVisitor = new PathVisitor(getPath());
+        return pathVisitor;
+    }
+
+    public synchronized double[] getPoints() {
+        if (points == null) points = NumberScanner.parseList(attributes.getValue("points"));
+        return points;
+    }
+}
@@ -22,13 +22,12 @@
 package io.github.jonestimd.vgeditor.svg;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+import io.github.jonestimd.vgeditor.collection.LruCache;
 import io.github.jonestimd.vgeditor.scene.model.NodeModel;
 import javafx.scene.Node;
 import javafx.scene.transform.Affine;
@@ -38,80 +37,177 @@ import javafx.scene.transform.Transform;
 import javafx.scene.transform.Translate;
 import org.xml.sax.Attributes;
 
+/**
+ * Parses the {@code transform} attribute of an SVG element.  Parsed transforms are cached by attribute value, since
+ * documents tend to repeat a small number of transforms.  By default, the transforms for a node are combined into a
+ * single {@link Affine}.
+ */
 public class TransformParser {
-    private static final Pattern SVG_PATTERN = Pattern.compile("(matrix|translate|scale|rotate|skew[XY])\\(([+\\-,. 0-9]+)\\)");
+    private static final Pattern SVG_PATTERN = Pattern.compile("(matrix|translate|scale|rotate|skew[XY])\\s*\\(([+\\-,.\\s0-9eE]+)\\)");
+    private static final int MAX_ARGS = 6;
+    private static final int CACHE_SIZE = 256;
+    /** The cached transforms are copied before being returned, so that nodes don't share mutable transforms. */
+    private static final LruCache<String, CacheEntry> CACHE = new LruCache<>(CACHE_SIZE);
+    private static volatile boolean composeTransforms = true;
+
+    /**
+     * @param compose true to combine the transforms of a node into a single {@link Affine}, false to add a separate
+     *                {@link Transform} for each function in the attribute
+     */
+    public static void setComposeTransforms(boolean compose) {
+        composeTransforms = compose;
+    }
 
     public static void setTransform(Node node, Attributes attributes) {
-        String transform = attributes.getValue("transform");
-        if (transform != null) {
-            Collection<Transform> transforms = parse(transform);
-            node.getTransforms().addAll(transforms);
-        }
+        setTransform(node, attributes.getValue("transform"));
+    }
+
+    /**
+     * @param transform the value of the {@code transform} attribute (ignored if {@code null})
+     */
+    public static void setTransform(Node node, String transform) {
+        if (transform != null) node.getTransforms().addAll(getTransforms(transform));
     }
 
     public static void setTransform(NodeModel model, Attributes attributes) {
-        String transform = attributes.getValue("transform");
-        if (transform != null) {
-            Collection<Transform> transforms = parse(transform);
-            model.getTransforms().addAll(transforms);
+        setTransform(model, attributes.getValue("transform"));
+    }
+
+    /**
+     * @param transform the value of the {@code transform} attribute (ignored if {@code null})
+     */
+    public static void setTransform(NodeModel model, String transform) {
+        if (transform != null) model.getTransforms().addAll(getTransforms(transform));
+    }
+
+    private static List<Transform> getTransforms(String svgTransforms) {
+        if (composeTransforms) {
+            Transform transform = getEntry(svgTransforms).getComposed();
+            return transform == null ? Collections.emptyList() : Collections.singletonList(transform.clone());
         }
+        return parse(svgTransforms);
     }
 
-    public static Collection<Transform> parse(String svgTransforms) {
+    /**
+     * @return the transforms in the order that they should be added to a node
+     */
+    public static List<Transform> parse(String svgTransforms) {
+        List<Transform> transforms = new ArrayList<>();
+        for (Transform transform : getEntry(svgTransforms).transforms) {
+            transforms.add(transform.clone());
+        }
+        return transforms;
+    }
+
+    /**
+     * @return the combined transform or {@link Affine identity} if the attribute does not contain any transforms
+     */
+    public static Affine parseAffine(String svgTransforms) {
+        Transform composed = getEntry(svgTransforms).getComposed();
+        return composed == null ? new Affine() : new Affine(composed);
+    }
+
+    private static CacheEntry getEntry(String svgTransforms) {
+        synchronized (CACHE) {
+            return CACHE.get(svgTransforms, TransformParser::parseEntry);
+        }
+    }
+
+    private static CacheEntry parseEntry(String svgTransforms) {
         List<Transform> transforms = new ArrayList<>();
         Matcher matcher = SVG_PATTERN.matcher(svgTransforms);
+        double[] args = new double[MAX_ARGS];
         while (matcher.find()) {
             String name = matcher.group(1);
-            List<Double> args = parseArgs(matcher.group(2));
-            if ("translate".equals(name)) transforms.add(0, translate(args));
-            else if ("scale".equals(name)) transforms.add(0, scale(args));
-            else if ("rotate".equals(name)) transforms.add(0, rotate(args));
-            else if ("skewX".equals(name)) transforms.add(0, skewX(args));
-            else if ("skewY".equals(name)) transforms.add(0, skewY(args));
-            else if ("matrix".equals(name)) transforms.add(0, matrix(args));
+            int count = parseArgs(new NumberScanner(svgTransforms, matcher.start(2), matcher.end(2)), args);
+            if (count == 0) continue;
+            if ("translate".equals(name)) transforms.add(translate(args, count));
+            else if ("scale".equals(name)) transforms.add(scale(args, count));
+            else if ("rotate".equals(name)) transforms.add(rotate(args, count));
+            else if ("skewX".equals(name)) transforms.add(skewX(args, count));
+            else if ("skewY".equals(name)) transforms.add(skewY(args, count));
+            else if ("matrix".equals(name)) transforms.add(matrix(args, count));
         }
-        return transforms;
+        return new CacheEntry(transforms);
     }
 
-    private static List<Double> parseArgs(String args) {
-        return Arrays.stream(args.trim().split("(, *| +)")).map(Double::parseDouble).collect(Collectors.toList());
+    /**
+     * @return the number of arguments read into {@code args}
+     */
+    private static int parseArgs(NumberScanner scanner, double[] args) {
+        int count = 0;
+        while (count < args.length && scanner.hasNext()) {
+            double value = scanner.next();
+            if (Double.isNaN(value)) break;
+            args[count++] = value;
+        }
+        return count;
     }
 
-    private static Translate translate(List<Double> args) {
-        double x = args.get(0);
-        double y = args.size() > 1 ? args.get(1) : 0d;
+    private static Translate translate(double[] args, int count) {
+        double x = args[0];
+        double y = count > 1 ? args[1] : 0d;
         return new Translate(x, y);
     }
 
-    private static Scale scale(List<Double> args) {
-        double x = args.get(0);
-        double y = args.size() > 1 ? args.get(1) : x;
+    private static Scale scale(double[] args, int count) {
+        double x = args[0];
+        double y = count > 1 ? args[1] : x;
         return new Scale(x, y);
     }
 
-    private static Rotate rotate(List<Double> args) {
-        double angle = args.get(0);
-        if (args.size() < 3) return new Rotate(angle);
-        return new Rotate(angle, args.get(1), args.get(2));
+    private static Rotate rotate(double[] args, int count) {
+        double angle = args[0];
+        if (count < 3) return new Rotate(angle);
+        return new Rotate(angle, args[1], args[2]);
     }
 
-    private static Affine skewX(List<Double> args) {
-        double angle = args.get(0);
-        return new Affine(1, 0, Math.tan(angle * Math.PI / 180), 1, 0, 0);
+    private static Affine skewX(double[] args, int count) {
+        double angle = args[0];
+        return new Affine(1, Math.tan(angle * Math.PI / 180), 0, 0, 1, 0);
     }
 
-    private static Affine skewY(List<Double> args) {
-        double angle = args.get(0);
-        return new Affine(1, Math.tan(angle * Math.PI / 180), 0, 1, 0, 0);
+    private static Affine skewY(double[] args, int count) {
+        double angle = args[0];
+        return new Affine(1, 0, 0, Math.tan(angle * Math.PI / 180), 1, 0);
     }
 
-    private static Affine matrix(List<Double> args) {
-        double mxx = (args.get(0));
-        double mxy = (args.get(1));
-        double myx = (args.get(2));
-        double myy = (args.get(3));
-        double tx = (args.get(4));
-        double ty = (args.get(5));
+    /**
+     * Create a transform from the SVG matrix {@code [a b c d e f]}, i.e. {@code x' = a*x + c*y + e} and
+     * {@code y' = b*x + d*y + f}.
+     */
+    private static Affine matrix(double[] args, int count) {
+        double mxx = count > 0 ? args[0] : 1d;
+        double myx = count > 1 ? args[1] : 0d;
+        double mxy = count > 2 ? args[2] : 0d;
+        double myy = count > 3 ? args[3] : 1d;
+        double tx = count > 4 ? args[4] : 0d;
+        double ty = count > 5 ? args[5] : 0d;
         return new Affine(mxx, mxy, tx, myx, myy, ty);
     }
+
+    private static class CacheEntry {
+        private final List<Transform> transforms;
+        private final Transform composed;
+
+        private CacheEntry(List<Transform> transforms) {
+            this.transforms = transforms;
+            this.composed = compose(transforms);
+        }
+
+        /**
+         * @return the composed transform or {@code null} if there are no transforms
+         */
+        public Transform getComposed() {
+            return composed;
+        }
+
+        private static Transform compose(List<Transform> transforms) {
+            if (transforms.isEmpty()) return null;
+            if (transforms.size() == 1) return transforms.get(0);
+            Affine affine = new Affine();
+            transforms.forEach(affine::append);
+            return affine;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.collection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class QuadTreeTest {
+    private final QuadTree<String> tree = new QuadTree<>();
+
+    @Test
+    public void queryReturnsIntersectingItems() throws Exception {
+        tree.put("a", 0, 0, 10, 10);
+        tree.put("b", 20, 20, 30, 30);
+        tree.put("point", 15, 15, 15, 15);
+
+        assertThat(tree.query(5, 5, 6, 6)).containsOnly("a");
+        assertThat(tree.query(10, 10, 20, 20)).containsOnly("a", "b", "point");
+        assertThat(tree.query(11, 11, 14, 14)).isEmpty();
+        assertThat(tree.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void growsToContainDistantItems() throws Exception {
+        tree.put("origin", 0, 0, 1, 1);
+        tree.put("far", -1e6, 5e5, -1e6+1, 5e5+1);
+        tree.put("large", -1e7, -1e7, 1e7, 1e7);
+
+        assertThat(tree.query(-1e6, 5e5, -1e6, 5e5)).containsOnly("far", "large");
+        assertThat(tree.query(0.5, 0.5, 0.5, 0.5)).containsOnly("origin", "large");
+    }
+
+    @Test
+    public void putUpdatesBounds() throws Exception {
+        tree.put("a", 0, 0, 10, 10);
+
+        tree.put("a", 100, 100, 110, 110);
+
+        assertThat(tree.query(0, 0, 10, 10)).isEmpty();
+        assertThat(tree.query(105, 105, 105, 105)).containsOnly("a");
+        assertThat(tree.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void remove() throws Exception {
+        tree.put("a", 0, 0, 10, 10);
+        tree.put("b", 0, 0, 10, 10);
+
+        assertThat(tree.remove("a")).isTrue();
+        assertThat(tree.remove("a")).isFalse();
+
+        assertThat(tree.contains("a")).isFalse();
+        assertThat(tree.query(0, 0, 10, 10)).containsOnly("b");
+    }
+
+    @Test
+    public void removeMergesCellsThatFitInOneCell() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            tree.put("item" + i, i, i, i + 1, i + 1);
+        }
+        assertThat(tree.getCellCount()).isGreaterThan(1);
+
+        for (int i = 8; i < 100; i++) {
+            tree.remove("item" + i);
+        }
+
+        assertThat(tree.getCellCount()).isEqualTo(1);
+        assertThat(tree.query(0, 0, 100, 100)).hasSize(8);
+        assertThat(tree.query(7.5, 7.5, 7.5, 7.5)).containsOnly("item7");
+        for (int i = 0; i < 8; i++) {
+            tree.remove("item" + i);
+        }
+        assertThat(tree.getCellCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void putRemovesEmptyCells() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            tree.put("item" + i, i, i, i + 1, i + 1);
+        }
+        tree.put("far", 1000, 1000, 1001, 1001);
+        int cellCount = tree.getCellCount();
+
+        tree.put("far", 0, 0, 1, 1);
+
+        assertThat(tree.getCellCount()).isLessThan(cellCount);
+        assertThat(tree.query(1000, 1000, 1001, 1001)).isEmpty();
+        assertThat(tree.query(0.5, 0.5, 0.5, 0.5)).containsOnly("item0", "far");
+    }
+
+    @Test
+    public void putRejectsInvalidBounds() throws Exception {
+        assertThatThrownBy(() -> tree.put("a", Double.NaN, 0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.put("a", 0, 0, Double.POSITIVE_INFINITY, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.put("a", 1, 0, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void handlesManyIdenticalItems() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            tree.put("item" + i, 1, 1, 1, 1);
+        }
+
+        assertThat(tree.query(0, 0, 2, 2)).hasSize(1000);
+    }
+
+    @Test
+    public void queryMatchesBruteForceSearch() throws Exception {
+        Random random = new Random(42L);
+        List<double[]> bounds = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble()*1000, y = random.nextDouble()*1000;
+            double width = random.nextDouble()*random.nextDouble()*200, height = random.nextDouble()*random.nextDouble()*200;
+            bounds.add(new double[] {x, y, x+width, y+height});
+            tree.put(Integer.toString(i), x, y, x+width, y+height);
+        }
+        for (int i = 0; i < 500; i += 2) {
+            tree.remove(Integer.toString(i));
+        }
+        for (int i = 1; i < 500; i += 2) {
+            double[] b = bounds.get(i);
+            tree.put(Integer.toString(i), b[0], b[1], b[2], b[3]);
+        }
+
+        for (int q = 0; q < 100; q++) {
+            double x = random.nextDouble()*1000, y = random.nextDouble()*1000, size = random.nextDouble()*50;
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < bounds.size(); i++) {
+                double[] b = bounds.get(i);
+                if ((i >= 500 || i%2 == 1) && b[0] <= x+size && b[2] >= x && b[1] <= y+size && b[3] >= y) expected.add(Integer.toString(i));
+            }
+            assertThat(new HashSet<>(tree.query(x, y, x+size, y+size))).isEqualTo(expected);
+        }
+    }
+}
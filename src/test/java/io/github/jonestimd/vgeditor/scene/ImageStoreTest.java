@@ -0,0 +1,154 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import javafx.scene.image.Image;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImageStoreTest {
+    private final ImageStore store = new ImageStore(ImageStore.DEFAULT_BUDGET, Runnable::run, Runnable::run);
+    private final AtomicInteger opens = new AtomicInteger();
+
+    private ImageStore.Source newSource(int width, int height) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        return () -> {
+            opens.incrementAndGet();
+            return new ByteArrayInputStream(bytes.toByteArray());
+        };
+    }
+
+    private Image acquire(ImageStore.Source source, double width, double height) {
+        Image[] result = new Image[1];
+        store.acquire(source, width, height, image -> result[0] = image);
+        return result[0];
+    }
+
+    @Test
+    public void decodesFullResolutionForZeroSize() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+
+        Image image = acquire(source, 0, 0);
+
+        assertThat(image.getWidth()).isEqualTo(100d);
+        assertThat(image.getHeight()).isEqualTo(80d);
+        assertThat(store.getSize(source).getWidth()).isEqualTo(100d);
+        assertThat(store.getUsedBytes()).isEqualTo(100*80*4);
+    }
+
+    @Test
+    public void decodesReducedVariantForSmallerSize() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+
+        assertThat(acquire(source, 30, 20).getWidth()).isEqualTo(50d);
+        assertThat(acquire(source, 20, 15).getWidth()).isEqualTo(25d);
+        assertThat(acquire(source, 20, 15).getHeight()).isEqualTo(20d);
+    }
+
+    @Test
+    public void decodesVariantForDisplayPixels() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+        Image[] result = new Image[1];
+
+        store.acquire(source, 20, 15, 2, image -> result[0] = image);
+
+        assertThat(result[0].getWidth()).isEqualTo(50d);
+    }
+
+    @Test
+    public void usesFullResolutionWhenZoomedIn() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+
+        assertThat(acquire(source, 60, 50).getWidth()).isEqualTo(100d);
+        assertThat(acquire(source, 400, 320).getWidth()).isEqualTo(100d);
+    }
+
+    @Test
+    public void sharesCachedVariant() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+        Image image = acquire(source, 30, 20);
+        int opened = opens.get();
+
+        assertThat(acquire(source, 40, 40)).isSameAs(image);
+        assertThat(opens.get()).isEqualTo(opened);
+    }
+
+    @Test
+    public void evictsReleasedImagesOverBudget() throws Exception {
+        ImageStore.Source source1 = newSource(100, 80);
+        ImageStore.Source source2 = newSource(100, 80);
+        store.setBudget(100*80*4);
+        Image image1 = acquire(source1, 0, 0);
+        Image image2 = acquire(source2, 0, 0);
+        assertThat(store.getUsedBytes()).isEqualTo(2*100*80*4);
+
+        store.release(image1);
+
+        assertThat(store.getUsedBytes()).isEqualTo(100*80*4);
+        assertThat(acquire(source2, 0, 0)).isSameAs(image2);
+    }
+
+    @Test
+    public void reloadsEvictedImage() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+        Image image = acquire(source, 0, 0);
+        store.release(image);
+        int opened = opens.get();
+
+        store.setBudget(0);
+        Image reloaded = acquire(source, 0, 0);
+
+        assertThat(reloaded).isNotSameAs(image);
+        assertThat(reloaded.getWidth()).isEqualTo(100d);
+        assertThat(opens.get()).isEqualTo(opened+1);
+    }
+
+    @Test
+    public void keepsImagesInUse() throws Exception {
+        ImageStore.Source source = newSource(100, 80);
+        Image image = acquire(source, 0, 0);
+        acquire(source, 0, 0);
+        store.setBudget(0);
+
+        store.release(image);
+
+        assertThat(store.getUsedBytes()).isEqualTo(100*80*4);
+    }
+
+    @Test
+    public void callsBackWithNullForInvalidImage() throws Exception {
+        Image[] result = {new Image(new ByteArrayInputStream(new byte[0]))};
+
+        store.acquire(() -> new ByteArrayInputStream(new byte[10]), 0, 0, image -> result[0] = image);
+
+        assertThat(result[0]).isNull();
+    }
+}
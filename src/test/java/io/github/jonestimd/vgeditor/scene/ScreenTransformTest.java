@@ -0,0 +1,100 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Group;
+import javafx.scene.shape.Rectangle;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ScreenTransformTest {
+    private final Rectangle rectangle = new Rectangle(0, 0, 10, 10);
+    private final Group inner = new Group(rectangle);
+    private final Group outer = new Group(inner);
+
+    @Test
+    public void ofReturnsCachedInstance() throws Exception {
+        assertThat(ScreenTransform.of(rectangle)).isSameAs(ScreenTransform.of(rectangle));
+    }
+
+    @Test
+    public void sceneToLocalMatchesNode() throws Exception {
+        outer.setScaleX(2);
+        outer.setRotate(30);
+        inner.setTranslateX(15);
+        rectangle.setLayoutY(-7);
+
+        checkSceneToLocal(3, 4);
+        checkSceneToLocal(-20, 50);
+    }
+
+    @Test
+    public void sceneToLocalUpdatesWhenAncestorChanges() throws Exception {
+        checkSceneToLocal(3, 4);
+
+        outer.setTranslateX(100);
+        checkSceneToLocal(3, 4);
+        inner.setRotate(45);
+        checkSceneToLocal(3, 4);
+        rectangle.setLayoutX(5);
+        checkSceneToLocal(3, 4);
+    }
+
+    @Test
+    public void sceneToLocalBounds() throws Exception {
+        inner.setTranslateX(10);
+        inner.setScaleY(2);
+
+        Bounds bounds = ScreenTransform.of(rectangle).sceneToLocal(new BoundingBox(10, 0, 20, 20));
+
+        assertThat(bounds).isEqualTo(rectangle.sceneToLocal(new BoundingBox(10, 0, 20, 20)));
+    }
+
+    @Test
+    public void sceneToLocalReturnsNullForNonInvertibleTransform() throws Exception {
+        inner.setScaleX(0);
+
+        assertThat(ScreenTransform.of(rectangle).sceneToLocal(1, 1)).isNull();
+
+        inner.setScaleX(1);
+        assertThat(ScreenTransform.of(rectangle).sceneToLocal(1, 1)).isNotNull();
+    }
+
+    @Test
+    public void screenToLocalReturnsNullWithoutWindow() throws Exception {
+        assertThat(ScreenTransform.of(rectangle).screenToLocal(1, 1)).isNull();
+        assertThat(ScreenTransform.of(rectangle).screenToLocal(new BoundingBox(0, 0, 1, 1))).isNull();
+    }
+
+    private void checkSceneToLocal(double x, double y) {
+        Point2D expected = rectangle.sceneToLocal(x, y);
+
+        Point2D actual = ScreenTransform.of(rectangle).sceneToLocal(x, y);
+
+        assertThat(actual.getX()).isCloseTo(expected.getX(), within(1e-5));
+        assertThat(actual.getY()).isCloseTo(expected.getY(), within(1e-5));
+    }
+}
@@ -31,6 +31,7 @@ import java.util.function.BiConsumer;
 import io.github.jonestimd.vgeditor.scene.NodeAnchor;
 import io.github.jonestimd.vgeditor.scene.Nodes;
 import io.github.jonestimd.vgeditor.scene.SceneTest;
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.RectangleModel;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
@@ -54,6 +55,7 @@ public class AnchoredShapeControllerTest extends SceneTest {
     private FormController basicShapeController = mock(FormController.class);
     private FillPaneController fillPaneController = mock(FillPaneController.class);
     private StrokePaneController strokePaneController = mock(StrokePaneController.class);
+    private DiagramIndex index = mock(DiagramIndex.class);
     private GridPane anchorParent;
     private TextField anchorXField;
     private final Map<String, Double> fieldValues = new HashMap<>();
@@ -88,7 +90,7 @@ public class AnchoredShapeControllerTest extends SceneTest {
         loader.setControllerFactory(this::getController);
         Pane form = loader.load();
         controller = loader.getController();
-        controller.setDiagram(diagram);
+        controller.setDiagram(diagram, index);
         anchorParent = Nodes.findFirstById(form, "anchorParent", GridPane.class).get();
     }
 
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.ResourceBundle;
 
 import io.github.jonestimd.vgeditor.scene.SceneTest;
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.EllipseModel;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXMLLoader;
@@ -45,6 +46,7 @@ public class EllipseControllerTest extends SceneTest {
     private FormController basicShapeController = mock(FormController.class);
     private FillPaneController fillPaneController = mock(FillPaneController.class);
     private StrokePaneController strokePaneController = mock(StrokePaneController.class);
+    private DiagramIndex index = mock(DiagramIndex.class);
     private final Map<String, Double> fieldValues = new HashMap<>();
 
     private Object getController(Class<?> type) {
@@ -78,7 +80,7 @@ public class EllipseControllerTest extends SceneTest {
         loader.setControllerFactory(this::getController);
         loader.load();
         controller = loader.getController();
-        controller.setDiagram(diagram);
+        controller.setDiagram(diagram, index);
     }
 
     @Test
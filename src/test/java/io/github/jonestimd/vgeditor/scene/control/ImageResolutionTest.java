@@ -0,0 +1,152 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.control;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+import io.github.jonestimd.vgeditor.scene.model.ImageModel;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.image.Image;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImageResolutionTest {
+    private final ImageStore store = new ImageStore(ImageStore.DEFAULT_BUDGET, Runnable::run, Runnable::run);
+    private final Group diagram = new Group();
+    private final List<Runnable> pulseTasks = new ArrayList<>();
+    private Bounds visibleArea = new BoundingBox(0, 0, 100, 100);
+    private double outputScale = 1;
+    private final ImageResolution imageResolution = new ImageResolution(diagram, () -> visibleArea, () -> outputScale, pulseTasks::add);
+
+    private void runPulse() {
+        List<Runnable> tasks = new ArrayList<>(pulseTasks);
+        pulseTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private ImageModel newModel(Group group, double width, double height) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(100, 80, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        ImageModel model = new ImageModel(group, store, () -> new ByteArrayInputStream(bytes.toByteArray()));
+        model.setWidth(width);
+        model.setHeight(height);
+        return model;
+    }
+
+    private static double getImageWidth(ImageModel model) {
+        Image image = model.getImageView().getImage();
+        return image == null ? 0 : image.getWidth();
+    }
+
+    @Test
+    public void tracksImagesInNestedGroups() throws Exception {
+        Group group = new Group();
+        newModel(group, 25, 20);
+        new ImageModel(group, null);
+        diagram.getChildren().add(new Group(group));
+
+        assertThat(imageResolution.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void tracksImagesAddedBeforeCreation() throws Exception {
+        newModel(diagram, 25, 20);
+
+        assertThat(new ImageResolution(diagram, () -> visibleArea, () -> outputScale, pulseTasks::add).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void stopsTrackingRemovedImages() throws Exception {
+        Group group = new Group();
+        diagram.getChildren().add(group);
+        newModel(group, 25, 20);
+        newModel(diagram, 25, 20);
+
+        diagram.getChildren().remove(group);
+        newModel(group, 25, 20);
+
+        assertThat(imageResolution.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void releasesImagesWhenDiagramIsCleared() throws Exception {
+        Group group = new Group();
+        diagram.getChildren().add(group);
+        newModel(group, 25, 20);
+        newModel(diagram, 25, 20);
+        runPulse();
+        assertThat(store.getUsedBytes()).isGreaterThan(0L);
+
+        diagram.getChildren().clear();
+        store.setBudget(0);
+
+        assertThat(imageResolution.size()).isEqualTo(0);
+        assertThat(store.getUsedBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void coalescesUpdatesToOncePerPulse() throws Exception {
+        newModel(diagram, 25, 20);
+        newModel(diagram, 25, 20);
+        imageResolution.invalidate();
+        imageResolution.invalidate();
+
+        assertThat(pulseTasks).hasSize(1);
+        runPulse();
+        imageResolution.invalidate();
+        assertThat(pulseTasks).hasSize(1);
+    }
+
+    @Test
+    public void loadsVisibleImagesOnNextPulse() throws Exception {
+        ImageModel visible = newModel(diagram, 25, 20);
+        ImageModel hidden = newModel(diagram, 25, 20);
+        hidden.setX(200);
+
+        runPulse();
+
+        assertThat(getImageWidth(visible)).isEqualTo(25d);
+        assertThat(hidden.getImageView().getImage()).isNull();
+    }
+
+    @Test
+    public void usesOutputScale() throws Exception {
+        ImageModel model = newModel(diagram, 25, 20);
+        runPulse();
+
+        outputScale = 2;
+        imageResolution.invalidate();
+        runPulse();
+
+        assertThat(getImageWidth(model)).isEqualTo(50d);
+    }
+}
@@ -29,6 +29,7 @@ import java.util.ResourceBundle;
 
 import io.github.jonestimd.vgeditor.scene.Nodes;
 import io.github.jonestimd.vgeditor.scene.SceneTest;
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.RectangleModel;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.TextField;
@@ -53,6 +54,7 @@ public class RectangleControllerTest extends SceneTest {
     private FormController basicShapeController = mock(FormController.class);
     private FillPaneController fillPaneController = mock(FillPaneController.class);
     private StrokePaneController strokePaneController = mock(StrokePaneController.class);
+    private DiagramIndex index = mock(DiagramIndex.class);
     private TextField anchorXField;
     private TextField arcWidth;
     private TextField arcHeight;
@@ -88,7 +90,7 @@ public class RectangleControllerTest extends SceneTest {
         loader.setControllerFactory(this::getController);
         Pane form = loader.load();
         controller = loader.getController();
-        controller.setDiagram(diagram);
+        controller.setDiagram(diagram, index);
         arcWidth = Nodes.findFirstById(form, ID_ARC_WIDTH, TextField.class).get();
         arcHeight = Nodes.findFirstById(form, ID_ARC_HEIGHT, TextField.class).get();
     }
@@ -30,6 +30,7 @@ import java.util.ResourceBundle;
 
 import io.github.jonestimd.vgeditor.scene.Nodes;
 import io.github.jonestimd.vgeditor.scene.SceneTest;
+import io.github.jonestimd.vgeditor.scene.control.selection.DiagramIndex;
 import io.github.jonestimd.vgeditor.scene.model.EllipseModel;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXMLLoader;
@@ -51,6 +52,7 @@ public class ShapeControllerTest extends SceneTest {
     private FormController basicShapeController = mock(FormController.class);
     private FillPaneController fillPaneController = mock(FillPaneController.class);
     private StrokePaneController strokePaneController = mock(StrokePaneController.class);
+    private DiagramIndex index = mock(DiagramIndex.class);
     private Button newButton;
     private TextField anchorXField;
     private final Map<String, Double> fieldValues = new HashMap<>();
@@ -85,7 +87,7 @@ public class ShapeControllerTest extends SceneTest {
         loader.setControllerFactory(this::getController);
         Pane form = loader.load();
         controller = loader.getController();
-        controller.setDiagram(diagram);
+        controller.setDiagram(diagram, index);
         newButton = Nodes.findFirstById(form, "newButton", Button.class).get();
     }
 
@@ -313,6 +315,7 @@ public class ShapeControllerTest extends SceneTest {
         controller.getMouseHandler().handle(diagram, getMouseEvent(MouseEvent.MOUSE_RELEASED, endX, endY, false));
 
         verify(diagram).startFullDrag();
+        verify(index).update();
         verify(basicShapeController).setValue(ID_ANCHOR_X, startX);
         verify(basicShapeController).setValue(ID_ANCHOR_Y, startY);
         verify(basicShapeController).setValue(ID_WIDTH, endX/2-startX);
@@ -62,4 +62,20 @@ public class TextFieldsTest extends JavafxTest {
         assertThat(TextFields.parseDouble(new TextField("-1.")).get()).isEqualTo(-1d);
         assertThat(TextFields.parseDouble(new TextField("-1.5")).get()).isEqualTo(-1.5d);
     }
+
+    @Test
+    public void parseDoubleReturnsNoneForMalformedNumber() throws Exception {
+        assertThat(TextFields.parseDouble(".5.5").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble("1.5.").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble("--1").isPresent()).isFalse();
+    }
+
+    @Test
+    public void parseDoubleRejectsSvgNumberSyntax() throws Exception {
+        assertThat(TextFields.parseDouble("+1").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble("1e2").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble("1.5E-2").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble("12px").isPresent()).isFalse();
+        assertThat(TextFields.parseDouble(" 1").isPresent()).isFalse();
+    }
 }
\ No newline at end of file
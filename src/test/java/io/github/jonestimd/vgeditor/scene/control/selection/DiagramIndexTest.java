@@ -0,0 +1,123 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.control.selection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.geometry.BoundingBox;
+import javafx.scene.Group;
+import javafx.scene.shape.Rectangle;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class DiagramIndexTest {
+    private final Group diagram = new Group();
+    private final List<Runnable> pulseTasks = new ArrayList<>();
+    private final DiagramIndex index = new DiagramIndex(diagram, pulseTasks::add);
+
+    private void runPulse() {
+        List<Runnable> tasks = new ArrayList<>(pulseTasks);
+        pulseTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void indexesShapesInDiagramCoordinates() throws Exception {
+        Rectangle rect1 = new Rectangle(0, 0, 10, 10);
+        Rectangle rect2 = new Rectangle(0, 0, 10, 10);
+        Group group = new Group(rect2);
+        group.setTranslateX(100);
+        diagram.getChildren().addAll(rect1, group);
+
+        assertThat(index.getCandidates(new BoundingBox(5, 5, 1, 1))).containsOnly(rect1);
+        assertThat(index.getCandidates(new BoundingBox(105, 5, 1, 1))).containsOnly(rect2);
+        assertThat(index.getCandidates(new BoundingBox(50, 5, 1, 1))).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void updatesWhenShapesChange() throws Exception {
+        Rectangle rect = new Rectangle(0, 0, 10, 10);
+        Group group = new Group(rect);
+        diagram.getChildren().add(group);
+        assertThat(index.getCandidates(new BoundingBox(5, 5, 1, 1))).containsOnly(rect);
+
+        rect.setX(20);
+        assertThat(index.getCandidates(new BoundingBox(5, 5, 1, 1))).isEmpty();
+        assertThat(index.getCandidates(new BoundingBox(25, 5, 1, 1))).containsOnly(rect);
+
+        group.setTranslateY(50);
+        assertThat(index.getCandidates(new BoundingBox(25, 5, 1, 1))).isEmpty();
+        assertThat(index.getCandidates(new BoundingBox(25, 55, 1, 1))).containsOnly(rect);
+
+        Rectangle added = new Rectangle(0, 0, 5, 5);
+        group.getChildren().add(added);
+        assertThat(index.getCandidates(new BoundingBox(1, 51, 1, 1))).containsOnly(added);
+
+        diagram.getChildren().remove(group);
+        assertThat(index.size()).isEqualTo(0);
+        rect.setX(0);
+        assertThat(index.getCandidates(new BoundingBox(5, 5, 1, 1))).isEmpty();
+    }
+
+    @Test
+    public void batchesUpdatesUntilNextPulse() throws Exception {
+        Rectangle rect1 = new Rectangle(0, 0, 10, 10);
+        Rectangle rect2 = new Rectangle(20, 0, 10, 10);
+        diagram.getChildren().addAll(rect1, rect2);
+        runPulse();
+        assertThat(index.getBatchCount()).isEqualTo(1L);
+
+        for (int i = 1; i <= 10; i++) {
+            rect1.setX(i*100);
+            rect1.setWidth(i*10);
+        }
+
+        assertThat(pulseTasks).hasSize(1);
+        assertThat(index.getPendingCount()).isEqualTo(1);
+        runPulse();
+        assertThat(index.getPendingCount()).isEqualTo(0);
+        assertThat(index.getBatchCount()).isEqualTo(2L);
+        assertThat(index.getUpdateCount()).isEqualTo(3L);
+        assertThat(index.getMaintenanceNanos()).isGreaterThan(0L);
+        assertThat(index.getCandidates(new BoundingBox(1050, 5, 1, 1))).containsOnly(rect1);
+    }
+
+    @Test
+    public void transformChangeUpdatesOnlyShapesInGroup() throws Exception {
+        Group group1 = new Group(new Rectangle(0, 0, 10, 10), new Group(new Rectangle(0, 0, 5, 5)));
+        Group group2 = new Group(new Rectangle(0, 0, 10, 10));
+        diagram.getChildren().addAll(group1, group2);
+        runPulse();
+
+        group1.setTranslateX(100);
+        assertThat(index.getPendingCount()).isEqualTo(2);
+        runPulse();
+        group1.setTranslateX(200);
+        assertThat(index.getPendingCount()).isEqualTo(2);
+
+        assertThat(index.getCandidates(new BoundingBox(202, 2, 1, 1))).hasSize(2);
+        assertThat(index.getCandidates(new BoundingBox(2, 2, 1, 1))).containsOnly(group2.getChildren().get(0));
+    }
+}
@@ -21,6 +21,9 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.control.selection;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import io.github.jonestimd.vgeditor.scene.SceneTest;
 import io.github.jonestimd.vgeditor.scene.model.PathModel;
 import io.github.jonestimd.vgeditor.scene.model.PolylineModel;
@@ -47,12 +50,13 @@ public class SelectionControllerTest extends SceneTest {
     private Circle marker = new Circle();
     private RectangleModel shape;
     private SelectionController controller;
+    private final List<Runnable> pulseTasks = new ArrayList<>();
 
     @Override
     public void setUpScene() throws Exception {
         super.setUpScene();
         marker.setVisible(false);
-        controller = new SelectionController(diagram, marker);
+        controller = new SelectionController(diagram, marker, pulseTasks::add);
         shape = new RectangleModel(diagram, 0, 0, 10, 10);
     }
 
@@ -198,6 +202,37 @@ public class SelectionControllerTest extends SceneTest {
         checkHighlight(bounds.getMaxX(), bounds.getMaxY(), text, centroid.getX(), centroid.getY());
     }
 
+    @Test
+    public void highlightsLastMoveBeforePulse() throws Exception {
+        RectangleModel model = new RectangleModel(diagram, 20, 30, 40, 50);
+
+        controller.handle(getEvent(MouseEvent.MOUSE_MOVED, 100, 100, null));
+        controller.handle(getEvent(MouseEvent.MOUSE_MOVED, 200, 200, null));
+        controller.handle(getEvent(MouseEvent.MOUSE_MOVED, 30, 40, null));
+
+        assertThat(controller.getHighlighted()).isNull();
+        runPulse();
+        assertThat(controller.getHighlighted()).isSameAs(model.getShape());
+        assertThat(controller.getDroppedMoveCount()).isEqualTo(2L);
+        assertThat(pulseTasks).isEmpty();
+    }
+
+    @Test
+    public void skipsSubPixelMoves() throws Exception {
+        new RectangleModel(diagram, 20, 30, 40, 50);
+        controller.handle(getEvent(MouseEvent.MOUSE_MOVED, 30, 40, null));
+        runPulse();
+
+        controller.handle(getEvent(MouseEvent.MOUSE_MOVED, 30+MIN_MOVE/2, 40-MIN_MOVE/2, null));
+
+        assertThat(pulseTasks).isEmpty();
+        assertThat(controller.getDroppedMoveCount()).isEqualTo(1L);
+    }
+
+    private void runPulse() {
+        while (!pulseTasks.isEmpty()) pulseTasks.remove(0).run();
+    }
+
     private Point2D getCentroid(Bounds bounds) {
         return new Point2D((bounds.getMinX()+bounds.getMaxX())/2, (bounds.getMinY()+bounds.getMaxY())/2);
     }
@@ -206,7 +241,10 @@ public class SelectionControllerTest extends SceneTest {
         setValue(controller, "highlighted", shape.getShape());
         shape.getShape().setEffect(new ColorAdjust(-.25, 0.2, 0.5, 0));
 
+        setValue(controller, "cursorX", Double.NaN);
+
         controller.handle(getEvent(MouseEvent.MOUSE_MOVED, x, y, null));
+        runPulse();
 
         assertThat(shape.getShape().getEffect()).isNull();
         assertThat(controller.getHighlighted()).isSameAs(expectedHighlight);
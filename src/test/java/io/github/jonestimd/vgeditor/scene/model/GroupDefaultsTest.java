@@ -0,0 +1,107 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.model;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class GroupDefaultsTest {
+    @Test
+    public void inheritsValuesFromParent() throws Exception {
+        GroupDefaults parent = new GroupDefaults(null, attributes("font-family", "Serif", "fill", "red"));
+
+        GroupDefaults child = new GroupDefaults(parent, attributes("font-size", "10px"));
+
+        assertThat(child.getString("font-family")).isEqualTo("Serif");
+        assertThat(child.getString("font-size")).isEqualTo("10px");
+        assertThat(parent.getString("font-size")).isNull();
+        Rectangle shape = new Rectangle();
+        child.setFill(shape);
+        assertThat(shape.getFill()).isEqualTo(Color.RED);
+    }
+
+    @Test
+    public void overridesParentValues() throws Exception {
+        GroupDefaults parent = new GroupDefaults(null, attributes("stroke", "red"));
+
+        GroupDefaults child = new GroupDefaults(parent, attributes("stroke", "blue"));
+
+        Rectangle shape = new Rectangle();
+        child.setStroke(shape);
+        assertThat(shape.getStroke()).isEqualTo(Color.BLUE);
+    }
+
+    @Test
+    public void ignoresAttributesThatAreNotInherited() throws Exception {
+        GroupDefaults defaults = new GroupDefaults(null, attributes("id", "group1", "transform", "scale(2)"));
+
+        assertThat(defaults.getString("id")).isNull();
+        assertThat(defaults.getString("transform")).isNull();
+    }
+
+    @Test
+    public void setFillClearsFillForNone() throws Exception {
+        GroupDefaults parent = new GroupDefaults(null, attributes("fill", "none"));
+        GroupDefaults child = new GroupDefaults(parent, attributes());
+        Rectangle shape = new Rectangle();
+
+        child.setFill(shape);
+
+        assertThat(shape.getFill()).isNull();
+    }
+
+    @Test
+    public void setFillDoesNothingWhenNotSet() throws Exception {
+        GroupDefaults defaults = new GroupDefaults(null, attributes());
+        Rectangle shape = new Rectangle();
+
+        defaults.setFill(shape);
+        defaults.setStroke(shape);
+
+        assertThat(shape.getFill()).isEqualTo(Color.BLACK);
+        assertThat(shape.getStroke()).isNull();
+    }
+
+    @Test
+    public void ofReturnsUserData() throws Exception {
+        GroupDefaults defaults = new GroupDefaults(null, attributes());
+        Group group = new Group();
+
+        assertThat(GroupDefaults.of(group)).isNull();
+        group.setUserData(defaults);
+        assertThat(GroupDefaults.of(group)).isSameAs(defaults);
+        assertThat(GroupDefaults.of(null)).isNull();
+    }
+
+    private static AttributesImpl attributes(String... nameValues) {
+        AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            attributes.addAttribute("", nameValues[i], nameValues[i], "CDATA", nameValues[i+1]);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,101 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.model;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+import javafx.geometry.BoundingBox;
+import javafx.scene.Group;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImageModelTest {
+    private final ImageStore store = new ImageStore(0, Runnable::run, Runnable::run);
+
+    private ImageModel newModel(int width, int height) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        return new ImageModel(new Group(), store, () -> new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void loadUsesFullResolutionSize() throws Exception {
+        ImageModel model = newModel(100, 80);
+
+        model.load();
+
+        assertThat(model.getImageView().getImage().getWidth()).isEqualTo(100d);
+        assertThat(model.getWidth()).isEqualTo(100d);
+        assertThat(model.getHeight()).isEqualTo(80d);
+    }
+
+    @Test
+    public void loadUsesReducedResolutionForSmallSize() throws Exception {
+        ImageModel model = newModel(100, 80);
+        model.setWidth(25);
+        model.setHeight(20);
+
+        model.load();
+
+        assertThat(model.getImageView().getImage().getWidth()).isEqualTo(25d);
+    }
+
+    @Test
+    public void updateResolutionReleasesImageOutsideOfVisibleArea() throws Exception {
+        ImageModel model = newModel(100, 80);
+        model.load();
+
+        model.updateResolution(new BoundingBox(200, 200, 100, 100));
+
+        assertThat(model.getImageView().getImage()).isNull();
+        assertThat(store.getUsedBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void updateResolutionLoadsImageInVisibleArea() throws Exception {
+        ImageModel model = newModel(100, 80);
+        model.load();
+        model.updateResolution(new BoundingBox(200, 200, 100, 100));
+
+        model.updateResolution(new BoundingBox(0, 0, 100, 100));
+
+        assertThat(model.getImageView().getImage().getWidth()).isEqualTo(100d);
+    }
+
+    @Test
+    public void updateResolutionUsesOutputScale() throws Exception {
+        ImageModel model = newModel(100, 80);
+        model.setWidth(25);
+        model.setHeight(20);
+        model.updateResolution(new BoundingBox(0, 0, 100, 100));
+
+        model.updateResolution(new BoundingBox(0, 0, 100, 100), 2);
+
+        assertThat(model.getImageView().getImage().getWidth()).isEqualTo(50d);
+    }
+}
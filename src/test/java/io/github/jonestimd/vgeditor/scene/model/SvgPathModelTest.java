@@ -0,0 +1,98 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.scene.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.jonestimd.vgeditor.scene.model.path.PathVisitor;
+import io.github.jonestimd.vgeditor.svg.PathParser;
+import javafx.geometry.Point2D;
+import javafx.scene.Group;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SvgPathModelTest {
+    private final List<String> parsed = new ArrayList<>();
+
+    private SvgPathModel newModel(String content) {
+        return new SvgPathModel(new Group(), content, d -> {
+            parsed.add(d);
+            return new PathParser().parse(d);
+        });
+    }
+
+    @Test
+    public void displaysContentWithoutParsing() throws Exception {
+        SvgPathModel model = newModel("M0,0 L100,0");
+
+        assertThat(model.getShape().getContent()).isEqualTo("M0,0 L100,0");
+        assertThat(model.isMaterialized()).isFalse();
+        assertThat(parsed).isEmpty();
+    }
+
+    @Test
+    public void parsesOnFirstHitTest() throws Exception {
+        SvgPathModel model = newModel("M0,0 L100,0");
+
+        assertThat(model.isInSelectionRange(new Point2D(50, 2))).isTrue();
+        assertThat(model.isInSelectionRange(new Point2D(50, 20))).isFalse();
+
+        assertThat(model.isMaterialized()).isTrue();
+        assertThat(parsed).containsExactly("M0,0 L100,0");
+    }
+
+    @Test
+    public void parsesAgainWhenContentChanges() throws Exception {
+        SvgPathModel model = newModel("M0,0 L100,0");
+        model.isInSelectionRange(new Point2D(50, 2));
+
+        model.getShape().setContent("M0,50 L100,50");
+
+        assertThat(model.isInSelectionRange(new Point2D(50, 2))).isFalse();
+        assertThat(model.isInSelectionRange(new Point2D(50, 48))).isTrue();
+        assertThat(parsed).containsExactly("M0,0 L100,0", "M0,50 L100,50");
+    }
+
+    @Test
+    public void usesSharedVisitorUntilContentChanges() throws Exception {
+        PathVisitor sharedVisitor = new PathVisitor(new PathParser().parse("M0,0 L100,0"));
+        List<PathVisitor> supplied = new ArrayList<>();
+        SvgPathModel model = new SvgPathModel(new Group(), "M0,0 L100,0", d -> {
+            parsed.add(d);
+            return new PathParser().parse(d);
+        }, () -> {
+            supplied.add(sharedVisitor);
+            return sharedVisitor;
+        });
+
+        assertThat(model.isInSelectionRange(new Point2D(50, 2))).isTrue();
+        assertThat(supplied).hasSize(1);
+        assertThat(parsed).isEmpty();
+
+        model.getShape().setContent("M0,50 L100,50");
+
+        assertThat(model.isInSelectionRange(new Point2D(50, 48))).isTrue();
+        assertThat(parsed).containsExactly("M0,50 L100,50");
+    }
+}
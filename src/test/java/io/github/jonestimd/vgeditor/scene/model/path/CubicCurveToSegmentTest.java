@@ -21,6 +21,7 @@
 // SOFTWARE.
 package io.github.jonestimd.vgeditor.scene.model.path;
 
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Point2D;
 import javafx.scene.shape.CubicCurveTo;
 import org.assertj.core.data.Offset;
@@ -68,4 +69,14 @@ public class CubicCurveToSegmentTest {
         assertThat(segment.getDistanceSquared(new Point2D(START_X, START_Y+5))).isEqualTo(25, Offset.offset(BezierPathSegment.ERROR));
         assertThat(segment.getDistanceSquared(new Point2D(END_X+5, END_Y))).isEqualTo(25, Offset.offset(BezierPathSegment.ERROR));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getBoundsIncludesControlPoints() throws Exception {
+        CubicCurveTo curveTo = new CubicCurveTo(START_X-5, START_Y+10, END_X+5, END_Y-10, END_X, END_Y);
+        CubicCurveToSegment segment = new CubicCurveToSegment(START, curveTo);
+
+        assertThat(segment.getBounds()).isEqualTo(new BoundingBox(START_X-5, END_Y-10, END_X-START_X+10, START_Y-END_Y+20));
+        assertThat(segment.isNear(new Point2D(START_X-6, START_Y), 1)).isTrue();
+        assertThat(segment.isNear(new Point2D(START_X-7, START_Y), 1)).isFalse();
+    }
+}
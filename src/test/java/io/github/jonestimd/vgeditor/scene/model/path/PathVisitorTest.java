@@ -85,6 +85,64 @@ public class PathVisitorTest {
         assertThat(visitor.find(x -> true).get()).isSameAs(first);
     }
 
+    @Test
+    public void findUpdatesSegmentWhenElementChanges() throws Exception {
+        LineTo lineTo1 = new LineTo(10, 20);
+        LineTo lineTo2 = new LineTo(30, 20);
+        PathVisitor visitor = new PathVisitor(new Path(new MoveTo(), lineTo1, lineTo2));
+        PathSegment<?> first = visitor.find(x -> x.getElement() == lineTo1).get();
+        PathSegment<?> second = visitor.find(x -> x.getElement() == lineTo2).get();
+
+        lineTo2.setY(40);
+
+        assertThat(visitor.find(x -> x.getElement() == lineTo1).get()).isSameAs(first);
+        PathSegment<?> updated = visitor.find(x -> x.getElement() == lineTo2).get();
+        assertThat(updated).isNotSameAs(second);
+        assertThat(updated.getEnd()).isEqualTo(new Point2D(30, 40));
+    }
+
+    @Test
+    public void findUpdatesFollowingSegmentsWhenElementChanges() throws Exception {
+        LineTo lineTo1 = new LineTo(10, 20);
+        LineTo lineTo2 = new LineTo(30, 20);
+        PathVisitor visitor = new PathVisitor(new Path(new MoveTo(), lineTo1, lineTo2));
+        visitor.some(x -> false);
+
+        lineTo1.setX(15);
+
+        assertThat(visitor.find(x -> x.getElement() == lineTo2).get().getStart()).isEqualTo(new Point2D(15, 20));
+    }
+
+    @Test
+    public void findUpdatesSegmentsWhenElementsChange() throws Exception {
+        LineTo lineTo1 = new LineTo(10, 20);
+        LineTo lineTo2 = new LineTo(30, 20);
+        Path path = new Path(new MoveTo(), lineTo1, lineTo2);
+        PathVisitor visitor = new PathVisitor(path);
+        visitor.some(x -> false);
+
+        path.getElements().remove(lineTo1);
+        assertThat(visitor.find(x -> true).get().getStart()).isEqualTo(new Point2D(0, 0));
+        assertThat(visitor.some(x -> x.getElement() == lineTo1)).isFalse();
+
+        path.getElements().add(1, new LineTo(5, 5));
+        assertThat(visitor.find(x -> x.getElement() == lineTo2).get().getStart()).isEqualTo(new Point2D(5, 5));
+    }
+
+    @Test
+    public void findIgnoresChangesToRemovedElements() throws Exception {
+        LineTo lineTo1 = new LineTo(10, 20);
+        LineTo lineTo2 = new LineTo(30, 20);
+        Path path = new Path(new MoveTo(), lineTo1, lineTo2);
+        PathVisitor visitor = new PathVisitor(path);
+        path.getElements().remove(lineTo1);
+        PathSegment<?> first = visitor.find(x -> true).get();
+
+        lineTo1.setX(15);
+
+        assertThat(visitor.find(x -> true).get()).isSameAs(first);
+    }
+
     @Test
     public void someReturnsTrueForMatch() throws Exception {
         MoveTo moveTo = new MoveTo(5, 6);
@@ -0,0 +1,64 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class AttributeParserTest {
+    @Test
+    public void parsePaintReturnsSharedInstance() throws Exception {
+        long misses = AttributeParser.getPaintCacheMisses();
+        long hits = AttributeParser.getPaintCacheHits();
+
+        Paint paint = AttributeParser.parsePaint("#123456");
+
+        assertThat(paint).isEqualTo(Color.web("#123456"));
+        assertThat(AttributeParser.parsePaint("#123456")).isSameAs(paint);
+        assertThat(AttributeParser.getPaintCacheMisses()).isEqualTo(misses+1);
+        assertThat(AttributeParser.getPaintCacheHits()).isEqualTo(hits+1);
+    }
+
+    @Test
+    public void setPaintPassesNullForNone() throws Exception {
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "fill", "fill", "CDATA", "none");
+        Paint[] paint = {Color.RED};
+
+        AttributeParser.setPaint(attributes, "fill", value -> paint[0] = value);
+
+        assertThat(paint[0]).isNull();
+    }
+
+    @Test
+    public void setPaintIgnoresMissingAttribute() throws Exception {
+        Paint[] paint = {Color.RED};
+
+        AttributeParser.setPaint(new AttributesImpl(), "fill", value -> paint[0] = value);
+
+        assertThat(paint[0]).isEqualTo(Color.RED);
+    }
+}
@@ -0,0 +1,97 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ImageLoaderTest {
+    private final ImageLoader loader = new ImageLoader();
+
+    @Test
+    public void decodesBase64DataUri() throws Exception {
+        ImageStore.Source source = loader.getSource("data:image/jpeg;base64," + encode("jpg", 4, 5));
+
+        BufferedImage image = ImageIO.read(source.open());
+
+        assertThat(image.getWidth()).isEqualTo(4);
+        assertThat(image.getHeight()).isEqualTo(5);
+    }
+
+    @Test
+    public void decodesPercentEncodedDataUri() throws Exception {
+        ImageStore.Source source = loader.getSource("data:text/plain,a%20b+c");
+
+        byte[] data = new byte[5];
+        assertThat(source.open().read(data)).isEqualTo(5);
+
+        assertThat(new String(data, "ISO-8859-1")).isEqualTo("a b+c");
+    }
+
+    @Test
+    public void sharesSourceForSamePayload() throws Exception {
+        String payload = encode("png", 3, 2);
+
+        ImageStore.Source source1 = loader.getSource("data:image/png;base64," + payload);
+        ImageStore.Source source2 = loader.getSource("DATA:image/png;base64," + payload);
+
+        assertThat(source2).isSameAs(source1);
+        assertThat(loader.getCacheHits()).isEqualTo(1L);
+    }
+
+    @Test
+    public void doesNotShareSourceForDifferentNonLatinPayloads() throws Exception {
+        ImageStore.Source source1 = loader.getSource("data:text/plain,\u4e00");
+        ImageStore.Source source2 = loader.getSource("data:text/plain,\u4e01");
+
+        assertThat(source2).isNotSameAs(source1);
+        assertThat(loader.getCacheHits()).isEqualTo(0L);
+    }
+
+    @Test
+    public void sharesSourceForSameUrl() throws Exception {
+        assertThat(loader.getSource("file:/image.png")).isSameAs(loader.getSource("file:/image.png"));
+        assertThat(loader.getSource("file:/image.png")).isNotSameAs(loader.getSource("file:/other.png"));
+    }
+
+    @Test
+    public void invalidBase64ThrowsException() throws Exception {
+        ImageStore.Source source = loader.getSource("data:image/png;base64,QQ=Q");
+
+        assertThatThrownBy(source::open).isInstanceOf(IOException.class);
+    }
+
+    public static String encode(String format, int width, int height) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, bytes);
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+}
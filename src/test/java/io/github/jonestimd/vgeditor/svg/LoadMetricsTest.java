@@ -0,0 +1,103 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import io.github.jonestimd.vgeditor.scene.ImageStore;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class LoadMetricsTest {
+    private final LoadMetrics metrics = new LoadMetrics(new ImageStore(1L, Runnable::run, Runnable::run));
+
+    @Test
+    public void disabledMetricsIgnoreUpdates() throws Exception {
+        LoadMetrics.DISABLED.begin();
+        LoadMetrics.DISABLED.countElement("rect");
+        LoadMetrics.DISABLED.stop(Phase.PATHS, LoadMetrics.DISABLED.start() - 1000L);
+        LoadMetrics.DISABLED.endParse(100L);
+
+        assertThat(LoadMetrics.DISABLED.isEnabled()).isFalse();
+        assertThat(LoadMetrics.DISABLED.getElementCounts()).isEmpty();
+        assertThat(LoadMetrics.DISABLED.getPhaseNanos(Phase.PATHS)).isEqualTo(0L);
+        assertThat(LoadMetrics.DISABLED.getBytesRead()).isEqualTo(0L);
+    }
+
+    @Test
+    public void tokenizeTimeExcludesHandlerTime() throws Exception {
+        metrics.begin();
+        long start = metrics.start();
+        Thread.sleep(5L);
+        metrics.stopHandler(start);
+        metrics.endParse(1000L);
+
+        assertThat(metrics.getParseNanos()).isGreaterThanOrEqualTo(5_000_000L);
+        assertThat(metrics.getPhaseNanos(Phase.TOKENIZE)).isLessThanOrEqualTo(metrics.getParseNanos() - 5_000_000L);
+        assertThat(metrics.getBytesPerSecond()).isEqualTo(1000L * 1e9 / metrics.getParseNanos());
+        assertThat(metrics.getElapsedNanos()).isGreaterThanOrEqualTo(metrics.getParseNanos());
+    }
+
+    @Test
+    public void parseTimeStartsAtBeginParse() throws Exception {
+        metrics.begin();
+        Thread.sleep(5L);
+        metrics.beginParse();
+        metrics.endParse(1000L);
+
+        assertThat(metrics.getParseNanos()).isLessThan(5_000_000L);
+        assertThat(metrics.getElapsedNanos()).isGreaterThanOrEqualTo(metrics.getParseNanos() + 5_000_000L);
+    }
+
+    @Test
+    public void beginParseStartsLoad() throws Exception {
+        metrics.beginParse();
+        metrics.endParse(1000L);
+
+        assertThat(metrics.getElapsedNanos()).isGreaterThanOrEqualTo(metrics.getParseNanos()).isLessThan(1_000_000_000L);
+    }
+
+    @Test
+    public void toJson() throws Exception {
+        metrics.begin();
+        metrics.countElement("rect");
+        metrics.countElement("g");
+        metrics.countElement("rect");
+        metrics.stop(Phase.STYLES, metrics.start() - 2_500_000L);
+        metrics.endParse(42L);
+
+        String json = metrics.toJson();
+
+        assertThat(json).startsWith("{\n").endsWith("\n}");
+        assertThat(json).contains("\"bytes\": 42,\n");
+        assertThat(json).containsPattern("\"styles\": 2\\.5\\d\\d");
+        assertThat(json).contains("\"elements\": {\n    \"g\": 1,\n    \"rect\": 2\n  }");
+        for (String phase : new String[] {"tokenize", "paths", "transforms", "styles", "images", "attach", "snapshot"}) {
+            assertThat(json).contains("\"" + phase + "\": ");
+        }
+    }
+
+    @Test
+    public void toJsonWithoutElements() throws Exception {
+        assertThat(metrics.toJson()).endsWith("\"elements\": {}\n}");
+    }
+}
@@ -0,0 +1,137 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class NumberScannerTest {
+    @Test
+    public void parseDoubleReturnsNaNForInvalidNumber() throws Exception {
+        assertThat(NumberScanner.parseDouble(null)).isNaN();
+        assertThat(NumberScanner.parseDouble("")).isNaN();
+        assertThat(NumberScanner.parseDouble("-")).isNaN();
+        assertThat(NumberScanner.parseDouble(".")).isNaN();
+        assertThat(NumberScanner.parseDouble("1.5.5")).isNaN();
+        assertThat(NumberScanner.parseDouble("1px")).isNaN();
+        assertThat(NumberScanner.parseDouble(" 1")).isNaN();
+    }
+
+    @Test
+    public void parseDoubleReturnsValueForValidNumber() throws Exception {
+        assertThat(NumberScanner.parseDouble("0")).isEqualTo(0d);
+        assertThat(NumberScanner.parseDouble("-0")).isEqualTo(-0d);
+        assertThat(NumberScanner.parseDouble("+1.5")).isEqualTo(1.5d);
+        assertThat(NumberScanner.parseDouble("-.5")).isEqualTo(-0.5d);
+        assertThat(NumberScanner.parseDouble("12.")).isEqualTo(12d);
+        assertThat(NumberScanner.parseDouble("1.25e2")).isEqualTo(125d);
+        assertThat(NumberScanner.parseDouble("125E-2")).isEqualTo(1.25d);
+        assertThat(NumberScanner.parseDouble("0.1")).isEqualTo(0.1d);
+        assertThat(NumberScanner.parseDouble("3.14159265358979323846")).isEqualTo(Math.PI);
+        assertThat(NumberScanner.parseDouble("1e400")).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void parseDoubleRejectsNonAsciiDigits() throws Exception {
+        assertThat(NumberScanner.parseDouble("١")).isNaN();
+        assertThat(NumberScanner.parseDouble("1٢")).isNaN();
+        assertThat(NumberScanner.parseDouble("1.٥")).isNaN();
+        assertThat(NumberScanner.parseDouble("1e٢")).isNaN();
+        assertThat(NumberScanner.parseList("1 ٢ 3")).containsExactly(1d);
+    }
+
+    @Test
+    public void parseDecimalReturnsValueForPlainDecimal() throws Exception {
+        assertThat(NumberScanner.parseDecimal("0")).isEqualTo(0d);
+        assertThat(NumberScanner.parseDecimal("-0")).isEqualTo(-0d);
+        assertThat(NumberScanner.parseDecimal("-.5")).isEqualTo(-0.5d);
+        assertThat(NumberScanner.parseDecimal("12.")).isEqualTo(12d);
+        assertThat(NumberScanner.parseDecimal("3.14159265358979323846")).isEqualTo(Math.PI);
+    }
+
+    @Test
+    public void parseDecimalRejectsSvgNumberSyntax() throws Exception {
+        assertThat(NumberScanner.parseDecimal(null)).isNaN();
+        assertThat(NumberScanner.parseDecimal("-")).isNaN();
+        assertThat(NumberScanner.parseDecimal("--1")).isNaN();
+        assertThat(NumberScanner.parseDecimal("+1")).isNaN();
+        assertThat(NumberScanner.parseDecimal("1e2")).isNaN();
+        assertThat(NumberScanner.parseDecimal("1.5E-2")).isNaN();
+        assertThat(NumberScanner.parseDecimal("12px")).isNaN();
+        assertThat(NumberScanner.parseDecimal("1.5.5")).isNaN();
+        assertThat(NumberScanner.parseDecimal(" 1")).isNaN();
+        assertThat(NumberScanner.parseDecimal("١")).isNaN();
+    }
+
+    @Test
+    public void strictScannerDoesNotReadUnitOrExponent() throws Exception {
+        NumberScanner scanner = new NumberScanner("12px 3e2", 0, 8, true);
+
+        assertThat(scanner.nextLength()).isEqualTo(12d);
+        assertThat(scanner.getPosition()).isEqualTo(2);
+        scanner = new NumberScanner("12px 3e2", 5, 8, true);
+        assertThat(scanner.next()).isEqualTo(3d);
+        assertThat(scanner.getPosition()).isEqualTo(6);
+    }
+
+    @Test
+    public void parseLengthConvertsUnits() throws Exception {
+        assertThat(NumberScanner.parseLength("12")).isEqualTo(12d);
+        assertThat(NumberScanner.parseLength(" 12px ")).isEqualTo(12d);
+        assertThat(NumberScanner.parseLength("1in")).isEqualTo(96d);
+        assertThat(NumberScanner.parseLength("72pt")).isEqualTo(96d);
+        assertThat(NumberScanner.parseLength("6pc")).isEqualTo(96d);
+        assertThat(NumberScanner.parseLength("2.54cm")).isEqualTo(96d, within(1e-9));
+        assertThat(NumberScanner.parseLength("25.4mm")).isEqualTo(96d, within(1e-9));
+    }
+
+    @Test
+    public void parseLengthReturnsNaNForUnsupportedUnit() throws Exception {
+        assertThat(NumberScanner.parseLength(null)).isNaN();
+        assertThat(NumberScanner.parseLength("12em")).isNaN();
+        assertThat(NumberScanner.parseLength("50%")).isNaN();
+    }
+
+    @Test
+    public void parseListSplitsOnSeparatorsAndSigns() throws Exception {
+        assertThat(NumberScanner.parseList("1,2 3 , 4\n5-6.5.5")).containsExactly(1d, 2d, 3d, 4d, 5d, -6.5d, 0.5d);
+        assertThat(NumberScanner.parseList("")).isEmpty();
+    }
+
+    @Test
+    public void parseListStopsAtInvalidNumber() throws Exception {
+        assertThat(NumberScanner.parseList("1 2 x 3")).containsExactly(1d, 2d);
+    }
+
+    @Test
+    public void scansRange() throws Exception {
+        NumberScanner scanner = new NumberScanner("x(10 20)", 2, 7);
+
+        assertThat(scanner.hasNext()).isTrue();
+        assertThat(scanner.next()).isEqualTo(10d);
+        assertThat(scanner.hasNext()).isTrue();
+        assertThat(scanner.next()).isEqualTo(20d);
+        assertThat(scanner.hasNext()).isFalse();
+        assertThat(scanner.getPosition()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,134 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PaintRegistryTest {
+    private final PaintRegistry registry = new PaintRegistry(new StyleSheet());
+
+    @Test
+    public void getPaintParsesColors() throws Exception {
+        assertThat(registry.getPaint("red")).isSameAs(AttributeParser.parsePaint("red"));
+    }
+
+    @Test
+    public void getPaintUsesFallbackForUndefinedReference() throws Exception {
+        assertThat(registry.getPaint("url(#missing) blue")).isEqualTo(Color.BLUE);
+        assertThat(registry.getPaint("url(#missing)")).isNull();
+        assertThat(registry.getPaint("url(#missing) none")).isNull();
+    }
+
+    @Test
+    public void createsLinearGradient() throws Exception {
+        registry.define("a", gradient("linearGradient", "x1", "10%", "y2", "1", "gradientTransform", "translate(1,0)"));
+
+        LinearGradient paint = (LinearGradient) registry.getPaint("url('#a')");
+
+        assertThat(paint.getStartX()).isEqualTo(1.1d);
+        assertThat(paint.getStartY()).isEqualTo(0d);
+        assertThat(paint.getEndX()).isEqualTo(2d);
+        assertThat(paint.getEndY()).isEqualTo(1d);
+        assertThat(paint.isProportional()).isTrue();
+        assertThat(paint.getCycleMethod()).isEqualTo(CycleMethod.NO_CYCLE);
+        assertThat(paint.getStops()).containsExactly(new Stop(0d, Color.RED), new Stop(1d, Color.BLUE));
+        assertThat(registry.getPaint("url(#a)")).isSameAs(paint);
+    }
+
+    @Test
+    public void createsRadialGradientWithReferencedStops() throws Exception {
+        registry.define("a", gradient("linearGradient", "spreadMethod", "repeat"));
+        SvgTemplate radial = new SvgTemplate("radialGradient", attributes("href", "#a", "gradientUnits", "userSpaceOnUse",
+                "cx", "10", "cy", "20", "r", "5", "fx", "10", "fy", "25"));
+        registry.define("b", radial);
+
+        RadialGradient paint = (RadialGradient) registry.getPaint("url(#b)");
+
+        assertThat(paint.getCenterX()).isEqualTo(10d);
+        assertThat(paint.getCenterY()).isEqualTo(20d);
+        assertThat(paint.getRadius()).isEqualTo(5d);
+        assertThat(paint.getFocusDistance()).isEqualTo(1d);
+        assertThat(paint.getFocusAngle()).isEqualTo(90d);
+        assertThat(paint.isProportional()).isFalse();
+        assertThat(paint.getCycleMethod()).isEqualTo(CycleMethod.REPEAT);
+        assertThat(paint.getStops()).hasSize(2);
+    }
+
+    @Test
+    public void gradientWithoutStopsIsUndefined() throws Exception {
+        registry.define("a", new SvgTemplate("linearGradient", attributes()));
+
+        assertThat(registry.getPaint("url(#a) red")).isEqualTo(Color.RED);
+    }
+
+    @Test
+    public void setPaintResolvesForwardReference() throws Exception {
+        List<Paint> paints = new ArrayList<>();
+
+        registry.setPaint("url(#a) red", paints::add);
+        registry.define("a", gradient("linearGradient"));
+        registry.resolveForwardReferences();
+
+        assertThat(paints).hasSize(2);
+        assertThat(paints.get(0)).isEqualTo(Color.RED);
+        assertThat(paints.get(1)).isSameAs(registry.getPaint("url(#a)")).isInstanceOf(LinearGradient.class);
+        assertThat(registry.isForwardReference("url(#b)")).isFalse();
+    }
+
+    @Test
+    public void setPaintIgnoresDefinedReference() throws Exception {
+        List<Paint> paints = new ArrayList<>();
+        registry.define("a", gradient("linearGradient"));
+
+        registry.setPaint("url(#a) red", paints::add);
+        registry.resolveForwardReferences();
+
+        assertThat(paints).containsExactly(registry.getPaint("url(#a)"));
+    }
+
+    private static SvgTemplate gradient(String name, String... nameValues) {
+        SvgTemplate gradient = new SvgTemplate(name, attributes(nameValues));
+        gradient.addChild(new SvgTemplate("stop", attributes("offset", "0", "stop-color", "red")));
+        gradient.addChild(new SvgTemplate("stop", attributes("offset", "1", "style", "stop-color: blue")));
+        return gradient;
+    }
+
+    private static AttributesImpl attributes(String... nameValues) {
+        AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            attributes.addAttribute("", nameValues[i], nameValues[i], "CDATA", nameValues[i+1]);
+        }
+        return attributes;
+    }
+}
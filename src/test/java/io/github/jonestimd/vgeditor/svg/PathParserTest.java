@@ -0,0 +1,158 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.List;
+
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.QuadCurveTo;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PathParserTest {
+    private final PathParser parser = new PathParser();
+
+    @Test
+    public void parsesAbsoluteCommands() throws Exception {
+        List<PathElement> elements = parser.parse("M10,20 L30 40 H50 V60 Z").getElements();
+
+        assertThat(elements).hasSize(5);
+        assertMoveTo(elements.get(0), 10, 20, true);
+        assertLineTo(elements.get(1), 30, 40, true);
+        assertLineTo(elements.get(2), 50, 40, true);
+        assertLineTo(elements.get(3), 50, 60, true);
+        assertThat(elements.get(4)).isInstanceOf(ClosePath.class);
+    }
+
+    @Test
+    public void parsesRelativeCommands() throws Exception {
+        List<PathElement> elements = parser.parse("m10 20l5 5h3v4").getElements();
+
+        assertThat(elements).hasSize(4);
+        assertMoveTo(elements.get(0), 10, 20, false);
+        assertLineTo(elements.get(1), 5, 5, false);
+        assertLineTo(elements.get(2), 3, 0, false);
+        assertLineTo(elements.get(3), 0, 4, false);
+    }
+
+    @Test
+    public void treatsExtraMoveToCoordinatesAsLineTo() throws Exception {
+        List<PathElement> elements = parser.parse("M1 2 3 4 5 6").getElements();
+
+        assertThat(elements).hasSize(3);
+        assertMoveTo(elements.get(0), 1, 2, true);
+        assertLineTo(elements.get(1), 3, 4, true);
+        assertLineTo(elements.get(2), 5, 6, true);
+    }
+
+    @Test
+    public void parsesNumbersWithoutSeparators() throws Exception {
+        List<PathElement> elements = parser.parse("M1.5.5L-1-2.25-.5e1+3").getElements();
+
+        assertThat(elements).hasSize(3);
+        assertMoveTo(elements.get(0), 1.5, 0.5, true);
+        assertLineTo(elements.get(1), -1, -2.25, true);
+        assertLineTo(elements.get(2), -5, 3, true);
+    }
+
+    @Test
+    public void parsesExponents() throws Exception {
+        List<PathElement> elements = parser.parse("M1e2,2.5E-1 L1e+1 0.000123").getElements();
+
+        assertMoveTo(elements.get(0), 100, 0.25, true);
+        assertLineTo(elements.get(1), 10, 0.000123, true);
+    }
+
+    @Test
+    public void parsesLongNumbers() throws Exception {
+        List<PathElement> elements = parser.parse("M0.1234567890123456789 12345678901234567890123").getElements();
+
+        assertMoveTo(elements.get(0), 0.1234567890123456789, 12345678901234567890123d, true);
+    }
+
+    @Test
+    public void parsesCurves() throws Exception {
+        List<PathElement> elements = parser.parse("M0 0C1 2 3 4 5 6S7 8 9 10Q1 2 3 4T5 6").getElements();
+
+        assertThat(elements).hasSize(5);
+        CubicCurveTo curveTo = (CubicCurveTo) elements.get(1);
+        assertThat(curveTo.getControlX1()).isEqualTo(1);
+        assertThat(curveTo.getControlY2()).isEqualTo(4);
+        CubicCurveTo smooth = (CubicCurveTo) elements.get(2);
+        assertThat(smooth.getControlX1()).isEqualTo(7);
+        assertThat(smooth.getControlY1()).isEqualTo(8);
+        assertThat(smooth.getControlX2()).isEqualTo(7);
+        assertThat(smooth.getControlY2()).isEqualTo(8);
+        QuadCurveTo quadSmooth = (QuadCurveTo) elements.get(4);
+        assertThat(quadSmooth.getControlX()).isEqualTo(5);
+        assertThat(quadSmooth.getControlY()).isEqualTo(6);
+    }
+
+    @Test
+    public void parsesArcFlagsWithoutSeparators() throws Exception {
+        List<PathElement> elements = parser.parse("M0 0A10 20 30 1110 20").getElements();
+
+        assertThat(elements).hasSize(2);
+        ArcTo arcTo = (ArcTo) elements.get(1);
+        assertThat(arcTo.getRadiusX()).isEqualTo(10);
+        assertThat(arcTo.getRadiusY()).isEqualTo(20);
+        assertThat(arcTo.getXAxisRotation()).isEqualTo(30);
+        assertThat(arcTo.isLargeArcFlag()).isTrue();
+        assertThat(arcTo.isSweepFlag()).isTrue();
+        assertThat(arcTo.getX()).isEqualTo(10);
+        assertThat(arcTo.getY()).isEqualTo(20);
+    }
+
+    @Test
+    public void stopsAtFirstError() throws Exception {
+        List<PathElement> elements = parser.parse("M0 0L10 10X20 20L30 30").getElements();
+
+        assertThat(elements).hasSize(2);
+    }
+
+    @Test
+    public void ignoresIncompleteArguments() throws Exception {
+        List<PathElement> elements = parser.parse("M0 0L10 10 20").getElements();
+
+        assertThat(elements).hasSize(2);
+    }
+
+    private static void assertMoveTo(PathElement element, double x, double y, boolean absolute) {
+        MoveTo moveTo = (MoveTo) element;
+        assertThat(moveTo.getX()).isEqualTo(x);
+        assertThat(moveTo.getY()).isEqualTo(y);
+        assertThat(moveTo.isAbsolute()).isEqualTo(absolute);
+    }
+
+    private static void assertLineTo(PathElement element, double x, double y, boolean absolute) {
+        LineTo lineTo = (LineTo) element;
+        assertThat(lineTo.getX()).isEqualTo(x);
+        assertThat(lineTo.getY()).isEqualTo(y);
+        assertThat(lineTo.isAbsolute()).isEqualTo(absolute);
+    }
+}
@@ -0,0 +1,183 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.jonestimd.vgeditor.scene.model.GroupDefaults;
+import io.github.jonestimd.vgeditor.scene.model.PathModel;
+import io.github.jonestimd.vgeditor.scene.model.SvgPathModel;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.shape.ArcTo;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.transform.Affine;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SceneSnapshotTest {
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+            "<g transform=\"translate(10,20) scale(2)\" fill=\"red\">" +
+            "<rect x=\"1\" y=\"2\" width=\"3\" height=\"4\" stroke=\"blue\"/>" +
+            "<circle cx=\"5\" cy=\"6\" r=\"7\"/>" +
+            "</g>" +
+            "<path d=\"M1,2 l3,4 A5,6 30 1 0 7,8 z\" fill=\"red\"/>" +
+            "<polygon points=\"1,2 3,4 5,6\"/>" +
+            "</svg>";
+
+    @Test
+    public void rebuildsParsedDiagram() throws Exception {
+        Group parsed = new Group();
+        new SvgParser().parse(new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8)), parsed);
+        List<Node> nodes = new ArrayList<>();
+        Group rebuilt = new Group();
+
+        SceneSnapshot.read(toInput(write(parsed)), rebuilt, nodes::add);
+
+        assertThat(nodes).hasSize(6);
+        Group svg = (Group) rebuilt.getChildren().get(0);
+        Group group = (Group) svg.getChildren().get(0);
+        assertThat(group.getTransforms()).hasSize(1);
+        Affine affine = (Affine) group.getTransforms().get(0);
+        assertThat(affine.getMxx()).isEqualTo(2d);
+        assertThat(affine.getTx()).isEqualTo(10d);
+        assertThat(affine.getTy()).isEqualTo(20d);
+        Rectangle rect = (Rectangle) group.getChildren().get(0);
+        assertThat(rect.getHeight()).isEqualTo(4d);
+        assertThat(rect.getFill()).isEqualTo(Color.RED);
+        assertThat(rect.getStroke()).isEqualTo(Color.BLUE);
+        Circle circle = (Circle) group.getChildren().get(1);
+        assertThat(circle.getRadius()).isEqualTo(7d);
+        assertThat(circle.getFill()).isSameAs(rect.getFill());
+        Path path = (Path) svg.getChildren().get(1);
+        assertThat(path.getUserData()).isInstanceOf(PathModel.class);
+        assertThat(path.getElements()).hasSize(4);
+        assertThat(path.getElements().get(1).isAbsolute()).isFalse();
+        ArcTo arcTo = (ArcTo) path.getElements().get(2);
+        assertThat(arcTo.getXAxisRotation()).isEqualTo(30d);
+        assertThat(arcTo.isLargeArcFlag()).isTrue();
+        assertThat(arcTo.isSweepFlag()).isFalse();
+        assertThat(((Polygon) svg.getChildren().get(2)).getPoints()).containsExactly(1d, 2d, 3d, 4d, 5d, 6d);
+    }
+
+    @Test
+    public void rebuildsLazyPath() throws Exception {
+        Group root = new Group();
+        new SvgPathModel(root, "M1,2 L3,4", d -> new PathParser().parse(d)).setFill(Color.RED);
+        Group rebuilt = new Group();
+
+        SceneSnapshot.read(toInput(write(root)), rebuilt, node -> {});
+
+        SVGPath path = (SVGPath) rebuilt.getChildren().get(0);
+        assertThat(path.getContent()).isEqualTo("M1,2 L3,4");
+        assertThat(path.getFill()).isEqualTo(Color.RED);
+        assertThat(path.getUserData()).isInstanceOf(SvgPathModel.class);
+    }
+
+    @Test
+    public void rebuildsGradients() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><defs>" +
+                "<linearGradient id=\"a\"><stop offset=\"0\" stop-color=\"red\"/><stop offset=\"1\" stop-color=\"blue\"/></linearGradient>" +
+                "<radialGradient id=\"b\" href=\"#a\" fx=\"0.25\" spreadMethod=\"reflect\"/></defs>" +
+                "<rect width=\"1\" height=\"1\" fill=\"url(#a)\" stroke=\"url(#b)\"/>" +
+                "<circle r=\"1\" fill=\"url(#a)\"/>" +
+                "</svg>";
+        Group parsed = new Group();
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), parsed);
+        Group rebuilt = new Group();
+
+        SceneSnapshot.read(toInput(write(parsed)), rebuilt, node -> {});
+
+        Rectangle original = (Rectangle) ((Group) parsed.getChildren().get(0)).getChildren().get(0);
+        Rectangle rect = (Rectangle) ((Group) rebuilt.getChildren().get(0)).getChildren().get(0);
+        Circle circle = (Circle) ((Group) rebuilt.getChildren().get(0)).getChildren().get(1);
+        assertThat(rect.getFill()).isEqualTo(original.getFill());
+        assertThat(rect.getStroke()).isEqualTo(original.getStroke());
+        assertThat(circle.getFill()).isSameAs(rect.getFill());
+    }
+
+    @Test
+    public void rebuildsGroupDefaults() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" font-size=\"20\"><defs>" +
+                "<linearGradient id=\"a\"><stop offset=\"0\" stop-color=\"red\"/><stop offset=\"1\" stop-color=\"blue\"/></linearGradient>" +
+                "</defs><g fill=\"url(#a)\" stroke=\"blue\"><rect width=\"1\" height=\"1\"/></g>" +
+                "</svg>";
+        Group parsed = new Group();
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), parsed);
+        Group rebuilt = new Group();
+
+        SceneSnapshot.read(toInput(write(parsed)), rebuilt, node -> {});
+
+        Group original = (Group) ((Group) parsed.getChildren().get(0)).getChildren().get(0);
+        Group group = (Group) ((Group) rebuilt.getChildren().get(0)).getChildren().get(0);
+        GroupDefaults defaults = GroupDefaults.of(group);
+        assertThat(defaults.getString("font-size")).isEqualTo("20");
+        assertThat(defaults.getString("stroke")).isEqualTo("blue");
+        Rectangle added = new ShapeFactory(new AttributesImpl(), group).getRect();
+        Rectangle expected = new ShapeFactory(new AttributesImpl(), original).getRect();
+        assertThat(added.getFill()).isInstanceOf(LinearGradient.class).isEqualTo(expected.getFill());
+        assertThat(added.getStroke()).isEqualTo(Color.BLUE);
+        assertThat(defaults.getPaints().getPaint("url(#a)")).isEqualTo(expected.getFill());
+    }
+
+    @Test
+    public void rejectsOtherVersion() throws Exception {
+        byte[] snapshot = write(new Group());
+        snapshot[7]++;
+
+        assertThatThrownBy(() -> SceneSnapshot.read(toInput(snapshot), new Group(), node -> {})).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void rejectsUnsupportedNode() throws Exception {
+        Group root = new Group(new ImageView((Image) null));
+
+        assertThatThrownBy(() -> write(root)).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] write(Group root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SceneSnapshot.write(root, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream toInput(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
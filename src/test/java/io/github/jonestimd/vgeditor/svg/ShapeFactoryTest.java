@@ -0,0 +1,172 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.github.jonestimd.vgeditor.scene.model.SvgPathModel;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Shape;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assume.*;
+
+public class ShapeFactoryTest {
+    /** bytes allocated per element when parsing elements that don't create nodes */
+    private static final long ALLOCATION_BUDGET = 8;
+    /**
+     * bytes allocated per shape by parsing, in addition to creating the shape, i.e. the attribute values created by
+     * the SAX parser (about 48 bytes each) and the step that creates the shape
+     */
+    private static final long SHAPE_ALLOCATION_BUDGET = 320;
+    private static final int ELEMENTS = 200_000;
+    private static final int SHAPES = 20_000;
+
+    @Test
+    public void resetReplacesIndexedAttributes() throws Exception {
+        ShapeFactory factory = new ShapeFactory();
+        Group group = new Group();
+
+        factory.reset(attributes("width", "2", "fill", "red", "id", "r1"), group);
+        Rectangle rect = factory.getRect();
+        factory.reset(attributes("height", "3"), group);
+
+        assertThat(rect.getWidth()).isEqualTo(2d);
+        assertThat(rect.getFill()).isEqualTo(Color.RED);
+        assertThat(factory.getValue("width")).isNull();
+        assertThat(factory.getValue("fill")).isNull();
+        assertThat(factory.getValue("id")).isNull();
+        assertThat(factory.getDouble("height")).isEqualTo(3d);
+    }
+
+    @Test
+    public void lazyPathGeometryIsComputedOnPool() throws Exception {
+        LoadMetrics metrics = new LoadMetrics();
+        Group group = new Group();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        ShapeFactory.setLazyPaths(true);
+        try {
+            Supplier<Shape> shape = new ShapeFactory(attributes("d", "M0,0 L10,20"), group).setMetrics(metrics).getPathShape(pool);
+            pool.shutdown();
+            assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(metrics.getPhaseNanos(Phase.PATHS)).isGreaterThan(0L);
+            assertThat(group.getChildren()).isEmpty();
+
+            SvgPathModel model = (SvgPathModel) shape.get().getUserData();
+
+            assertThat(model.getContent()).isEqualTo("M0,0 L10,20");
+            assertThat(model.isMaterialized()).isFalse();
+            assertThat(model.getShape().getBoundsInLocal().getMaxY()).isGreaterThanOrEqualTo(20d);
+            assertThat(group.getChildren()).containsExactly(model.getShape());
+        } finally {
+            ShapeFactory.setLazyPaths(false);
+        }
+    }
+
+    @Test
+    public void dispatchStaysWithinAllocationBudget() throws Exception {
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+        byte[] svg = generate(ELEMENTS, "title", "desc", "tspan", "metadata", "unknown");
+        parse(svg);
+        long threadId = Thread.currentThread().getId();
+
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        Group diagram = parse(svg);
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(((Group) diagram.getChildren().get(0)).getChildren()).isEmpty();
+        assertThat(allocated/ELEMENTS).isLessThanOrEqualTo(ALLOCATION_BUDGET);
+    }
+
+    @Test
+    public void shapeOverheadStaysWithinAllocationBudget() throws Exception {
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+        byte[] svg = generate(SHAPES, "rect");
+        AttributesImpl attributes = attributes("x", "1", "y", "2", "width", "3", "height", "4", "fill", "red");
+        ShapeFactory factory = new ShapeFactory();
+        parse(svg);
+        createRects(factory, attributes);
+        long threadId = Thread.currentThread().getId();
+
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        Group diagram = parse(svg);
+        long parsed = allocationBean.getThreadAllocatedBytes(threadId) - before;
+        before = allocationBean.getThreadAllocatedBytes(threadId);
+        createRects(factory, attributes);
+        long created = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(((Group) diagram.getChildren().get(0)).getChildren()).hasSize(SHAPES);
+        assertThat((parsed - created)/SHAPES).isLessThanOrEqualTo(SHAPE_ALLOCATION_BUDGET);
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+        return allocationBean;
+    }
+
+    private static byte[] generate(int elements, String... names) {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\">");
+        for (int i = 0; i < elements; i++) {
+            svg.append('<').append(names[i%names.length]).append(" x=\"1\" y=\"2\" width=\"3\" height=\"4\" fill=\"red\"/>");
+        }
+        return svg.append("</svg>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse the document the way that {@link SvgLoadTask} does, i.e. with a geometry pool and load metrics.
+     */
+    private static Group parse(byte[] svg) throws Exception {
+        Group diagram = new Group();
+        new SvgParser(node -> {}, SvgEntityResolver.CATALOG, ForkJoinPool.commonPool(), new LoadMetrics(), () -> false)
+                .parse(new ByteArrayInputStream(svg), diagram);
+        return diagram;
+    }
+
+    private static void createRects(ShapeFactory factory, AttributesImpl attributes) {
+        Group group = new Group();
+        for (int i = 0; i < SHAPES; i++) {
+            factory.reset(attributes, group).getRect();
+        }
+    }
+
+    private static AttributesImpl attributes(String... nameValues) {
+        AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            attributes.addAttribute("", nameValues[i], nameValues[i], "CDATA", nameValues[i+1]);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,128 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Line;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SnapshotCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keyDependsOnContent() throws Exception {
+        SnapshotCache cache = new SnapshotCache(folder.getRoot().toPath());
+        Path file1 = write("file1.svg", "<svg/>");
+        Path file2 = write("file2.svg", "<svg/>");
+        Path file3 = write("file3.svg", "<svg></svg>");
+
+        assertThat(cache.getKey(file1)).hasSize(64).isEqualTo(cache.getKey(file2));
+        assertThat(cache.getKey(file3)).isNotEqualTo(cache.getKey(file1));
+    }
+
+    @Test
+    public void keyDependsOnParserVersion() throws Exception {
+        SnapshotCache cache = new SnapshotCache(folder.getRoot().toPath());
+        Path file = write("file.svg", "<svg/>");
+
+        assertThat(cache.getKey(file)).isEqualTo(cache.getKey(file, SvgParser.OUTPUT_VERSION));
+        assertThat(cache.getKey(file, SvgParser.OUTPUT_VERSION + 1)).isNotEqualTo(cache.getKey(file));
+    }
+
+    @Test
+    public void recordsUnsupportedFileUntilModified() throws Exception {
+        SnapshotCache cache = new SnapshotCache(folder.getRoot().toPath().resolve("cache"));
+        Path file = write("file.svg", "<svg/>");
+        Path other = write("other.svg", "<svg/>");
+        assertThat(cache.isUnsupported(file)).isFalse();
+
+        cache.markUnsupported(file);
+
+        assertThat(cache.isUnsupported(file)).isTrue();
+        assertThat(cache.isUnsupported(other)).isFalse();
+        Files.write(file, "<svg></svg>".getBytes(StandardCharsets.UTF_8));
+        assertThat(cache.isUnsupported(file)).isFalse();
+    }
+
+    @Test
+    public void loadReturnsFalseForMissingSnapshot() throws Exception {
+        SnapshotCache cache = new SnapshotCache(folder.getRoot().toPath());
+
+        assertThat(cache.load("missing", new Group(), node -> {})).isFalse();
+    }
+
+    @Test
+    public void loadsSavedSnapshot() throws Exception {
+        SnapshotCache cache = new SnapshotCache(folder.getRoot().toPath().resolve("snapshots"));
+        Group root = new Group(new Line(1, 2, 3, 4));
+        Group loaded = new Group();
+        List<Node> nodes = new ArrayList<>();
+
+        assertThat(cache.save("key", root)).isTrue();
+        assertThat(cache.load("key", loaded, nodes::add)).isTrue();
+
+        assertThat(nodes).containsExactlyElementsOf(loaded.getChildren());
+        assertThat(((Line) loaded.getChildren().get(0)).getEndY()).isEqualTo(4d);
+    }
+
+    @Test
+    public void loadDeletesInvalidSnapshot() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        SnapshotCache cache = new SnapshotCache(directory);
+        Path snapshot = write("key.snapshot", "invalid");
+
+        assertThat(cache.load("key", new Group(), node -> {})).isFalse();
+
+        assertThat(Files.exists(snapshot)).isFalse();
+    }
+
+    @Test
+    public void loadKeepsSnapshotWhenNodeConsumerCancels() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        SnapshotCache cache = new SnapshotCache(directory);
+        assertThat(cache.save("key", new Group(new Line(1, 2, 3, 4), new Line(5, 6, 7, 8)))).isTrue();
+
+        assertThatThrownBy(() -> cache.load("key", new Group(), node -> {
+            throw new CancellationException();
+        })).isInstanceOf(CancellationException.class);
+
+        assertThat(Files.exists(directory.resolve("key.snapshot"))).isTrue();
+        assertThat(cache.load("key", new Group(), node -> {})).isTrue();
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.write(folder.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
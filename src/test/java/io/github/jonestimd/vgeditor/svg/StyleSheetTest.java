@@ -0,0 +1,92 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StyleSheetTest {
+    private final StyleSheet styleSheet = new StyleSheet();
+
+    @Test
+    public void resolveReturnsAttributesWithoutStyles() throws Exception {
+        AttributesImpl attributes = attributes("fill", "red");
+
+        assertThat(styleSheet.resolve("rect", attributes)).isSameAs(attributes);
+    }
+
+    @Test
+    public void resolveAppliesRulesBySpecificity() throws Exception {
+        styleSheet.add("#shape { fill: green } rect.a { fill: blue } .a { fill: red; stroke: black } rect { fill: gray }");
+
+        assertThat(styleSheet.resolve("rect", attributes("class", "a")).getValue("fill")).isEqualTo("blue");
+        assertThat(styleSheet.resolve("circle", attributes("class", "b a")).getValue("fill")).isEqualTo("red");
+        assertThat(styleSheet.resolve("rect", attributes("class", "b")).getValue("fill")).isEqualTo("gray");
+        assertThat(styleSheet.resolve("rect", attributes("class", "a", "id", "shape")).getValue("fill")).isEqualTo("green");
+        assertThat(styleSheet.resolve("rect", attributes("class", "a", "id", "shape")).getValue("stroke")).isEqualTo("black");
+    }
+
+    @Test
+    public void laterRulesOverrideEarlierRules() throws Exception {
+        styleSheet.add(".a { fill: red }");
+        styleSheet.add(".a { fill: blue }");
+
+        assertThat(styleSheet.resolve("rect", attributes("class", "a")).getValue("fill")).isEqualTo("blue");
+    }
+
+    @Test
+    public void styleAttributeOverridesRulesAndPresentationAttributes() throws Exception {
+        styleSheet.add("* { stroke: red; fill: red }");
+
+        Attributes resolved = styleSheet.resolve("rect", attributes("fill", "black", "stroke", "black", "style", "fill:blue !important;"));
+
+        assertThat(resolved.getValue("fill")).isEqualTo("blue");
+        assertThat(resolved.getValue("stroke")).isEqualTo("red");
+    }
+
+    @Test
+    public void ignoresCommentsAtRulesAndComplexSelectors() throws Exception {
+        styleSheet.add("/* .a { fill: red } */ @media print { .a { fill: green } } g .a, .a:hover { fill: blue } .a { stroke: red }");
+
+        Attributes resolved = styleSheet.resolve("rect", attributes("class", "a"));
+
+        assertThat(resolved.getValue("fill")).isNull();
+        assertThat(resolved.getValue("stroke")).isEqualTo("red");
+    }
+
+    @Test
+    public void parseDeclarations() throws Exception {
+        assertThat(StyleSheet.parseDeclarations(" fill : red ; ; stroke-width:2px")).containsExactly(
+                entry("fill", "red"), entry("stroke-width", "2px"));
+    }
+
+    private static AttributesImpl attributes(String... nameValues) {
+        AttributesImpl attributes = new AttributesImpl();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            attributes.addAttribute("", nameValues[i], nameValues[i], "CDATA", nameValues[i+1]);
+        }
+        return attributes;
+    }
+}
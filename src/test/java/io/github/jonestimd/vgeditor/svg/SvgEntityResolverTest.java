@@ -0,0 +1,87 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SvgEntityResolverTest {
+    @Test
+    public void resolvesSvgDtdByPublicId() throws Exception {
+        InputSource source = SvgEntityResolver.CATALOG.resolveEntity("-//W3C//DTD SVG 1.1//EN", "svg11.dtd");
+
+        assertThat(source.getByteStream()).isNotNull();
+        assertThat(source.getSystemId()).isEqualTo("svg11.dtd");
+    }
+
+    @Test
+    public void resolvesSvgDtdBySystemId() throws Exception {
+        InputSource source = SvgEntityResolver.CATALOG.resolveEntity(null, "https://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd");
+
+        assertThat(source.getByteStream()).isNotNull();
+    }
+
+    @Test
+    public void catalogUsesDefaultResolutionForUnknownEntity() throws Exception {
+        assertThat(SvgEntityResolver.CATALOG.resolveEntity(null, "http://example.com/other.dtd")).isNull();
+    }
+
+    @Test
+    public void offlineIgnoresUnknownEntity() throws Exception {
+        InputSource source = SvgEntityResolver.OFFLINE.resolveEntity(null, "http://example.com/other.dtd");
+
+        assertThat(source.getCharacterStream().read()).isEqualTo(-1);
+    }
+
+    @Test
+    public void localDtdDeclaresSvgNamespace() throws Exception {
+        String svg = "<?xml version=\"1.0\"?>\n" +
+                "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">\n" +
+                "<svg/>";
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        StringBuilder uri = new StringBuilder();
+
+        factory.newSAXParser().parse(new InputSource(new StringReader(svg)), new DefaultHandler() {
+            @Override
+            public InputSource resolveEntity(String publicId, String systemId) throws IOException {
+                return SvgEntityResolver.OFFLINE.resolveEntity(publicId, systemId);
+            }
+
+            @Override
+            public void startElement(String namespace, String localName, String qName, Attributes attributes) {
+                uri.append(namespace);
+            }
+        });
+
+        assertThat(uri.toString()).isEqualTo("http://www.w3.org/2000/svg");
+    }
+}
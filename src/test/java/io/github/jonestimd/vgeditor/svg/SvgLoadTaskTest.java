@@ -0,0 +1,169 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.github.jonestimd.vgeditor.JavafxTest;
+import io.github.jonestimd.vgeditor.svg.LoadMetrics.Phase;
+import javafx.scene.Group;
+import javafx.scene.shape.Rectangle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SvgLoadTaskTest extends JavafxTest {
+    private static final int BATCH_SIZE = 2;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final BlockingQueue<Runnable> pulseTasks = new LinkedBlockingQueue<>();
+    private final Group diagram = new Group();
+
+    @Test
+    public void attachesNodesInBatchesOnPulses() throws Exception {
+        SvgLoadTask task = new SvgLoadTask(writeSvg(5), diagram, BATCH_SIZE, null, pulseTasks::add);
+        Thread thread = start(task);
+
+        nextPulse().run();
+        assertThat(diagram.getChildren()).hasSize(2);
+        assertThat(task.getProgress()).isEqualTo(0.4);
+        nextPulse().run();
+        assertThat(diagram.getChildren()).hasSize(4);
+        nextPulse().run();
+
+        thread.join(10000L);
+        assertThat(thread.isAlive()).isFalse();
+        assertThat(pulseTasks).isEmpty();
+        assertThat(diagram.getChildren()).hasSize(5);
+        assertThat(((Rectangle) diagram.getChildren().get(4)).getX()).isEqualTo(4d);
+        assertThat(task.getProgress()).isEqualTo(1d);
+    }
+
+    @Test
+    public void doesNotAttachNodesBeforePulse() throws Exception {
+        SvgLoadTask task = new SvgLoadTask(writeSvg(3), diagram, BATCH_SIZE, null, pulseTasks::add);
+        Thread thread = start(task);
+
+        Runnable pulse = nextPulse();
+
+        assertThat(diagram.getChildren()).isEmpty();
+        pulse.run();
+        nextPulse().run();
+        thread.join(10000L);
+        assertThat(diagram.getChildren()).hasSize(3);
+    }
+
+    @Test
+    public void cancelRemovesAttachedNodes() throws Exception {
+        SvgLoadTask task = new SvgLoadTask(writeSvg(5), diagram, BATCH_SIZE, null, pulseTasks::add);
+        Thread thread = start(task);
+        nextPulse().run();
+        assertThat(diagram.getChildren()).hasSize(2);
+
+        task.cancel();
+        nextPulse().run();
+
+        thread.join(10000L);
+        assertThat(thread.isAlive()).isFalse();
+        assertThat(diagram.getChildren()).isEmpty();
+        assertThat(pulseTasks).isEmpty();
+    }
+
+    @Test
+    public void restoresSnapshotOnSecondLoad() throws Exception {
+        File file = writeSvg(3);
+        SnapshotCache snapshotCache = new SnapshotCache(folder.newFolder("snapshots").toPath());
+        load(new SvgLoadTask(file, new Group(), BATCH_SIZE, snapshotCache, pulseTasks::add));
+        SvgLoadTask task = new SvgLoadTask(file, diagram, BATCH_SIZE, snapshotCache, pulseTasks::add);
+
+        load(task);
+
+        assertThat(diagram.getChildren()).hasSize(3);
+        LoadMetrics metrics = task.getMetrics();
+        assertThat(metrics.getParseNanos()).isEqualTo(0L);
+        assertThat(metrics.getPhaseNanos(Phase.SNAPSHOT)).isGreaterThan(0L);
+        assertThat(metrics.getElapsedNanos()).isGreaterThanOrEqualTo(metrics.getPhaseNanos(Phase.SNAPSHOT))
+                .isLessThan(TimeUnit.MINUTES.toNanos(1L));
+    }
+
+    @Test
+    public void recordsFileThatCantBeSnapshotted() throws Exception {
+        File file = folder.newFile("image.svg");
+        Files.write(file.toPath(), ("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">" +
+                "<image xlink:href=\"file:///missing.png\" width=\"1\" height=\"1\"/></svg>").getBytes(StandardCharsets.UTF_8));
+        SnapshotCache snapshotCache = new SnapshotCache(folder.newFolder("snapshots").toPath());
+
+        load(new SvgLoadTask(file, diagram, BATCH_SIZE, snapshotCache, pulseTasks::add));
+
+        assertThat(diagram.getChildren()).hasSize(1);
+        assertThat(snapshotCache.isUnsupported(file.toPath())).isTrue();
+    }
+
+    @Test
+    public void cancelStopsParser() throws Exception {
+        SvgLoadTask task = new SvgLoadTask(writeSvg(5), diagram, BATCH_SIZE, null, pulseTasks::add);
+        task.cancel();
+
+        assertThatThrownBy(task::call).isInstanceOf(CancellationException.class);
+
+        assertThat(pulseTasks).isEmpty();
+        assertThat(diagram.getChildren()).isEmpty();
+    }
+
+    private Runnable nextPulse() throws InterruptedException {
+        Runnable pulse = pulseTasks.poll(10, TimeUnit.SECONDS);
+        assertThat(pulse).isNotNull();
+        return pulse;
+    }
+
+    private void load(SvgLoadTask task) throws Exception {
+        Thread thread = start(task);
+        while (thread.isAlive()) {
+            Runnable pulse = pulseTasks.poll(100L, TimeUnit.MILLISECONDS);
+            if (pulse != null) pulse.run();
+        }
+    }
+
+    private Thread start(SvgLoadTask task) {
+        Thread thread = new Thread(task, "svg-loader");
+        thread.start();
+        return thread;
+    }
+
+    private File writeSvg(int rectangles) throws Exception {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\">");
+        for (int i = 0; i < rectangles; i++) {
+            svg.append("<rect x=\"").append(i).append("\" y=\"0\" width=\"1\" height=\"1\"/>");
+        }
+        File file = folder.newFile("test.svg");
+        Files.write(file.toPath(), svg.append("</svg>").toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,424 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.jonestimd.vgeditor.scene.model.PathModel;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import org.junit.Test;
+import org.xml.sax.helpers.AttributesImpl;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SvgParserTest {
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\"><rect x=\"1\" y=\"2\" width=\"3\" height=\"4\"/></svg>";
+
+    @Test
+    public void parsesInputStream() throws Exception {
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        assertThat(getRect(diagram).getWidth()).isEqualTo(3d);
+    }
+
+    @Test
+    public void doesNotCloseStream() throws Exception {
+        boolean[] closed = {false};
+        InputStream input = new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        new SvgParser().parse(input, new Group());
+
+        assertThat(closed[0]).isFalse();
+    }
+
+    @Test
+    public void doesNotCloseChannel() throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(gzip(SVG)));
+
+        new SvgParser().parse(channel, new Group());
+
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    @Test
+    public void parsesGzipStream() throws Exception {
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(gzip(SVG)), diagram);
+
+        assertThat(getRect(diagram).getHeight()).isEqualTo(4d);
+    }
+
+    @Test
+    public void parsesChannel() throws Exception {
+        Group diagram = new Group();
+
+        new SvgParser().parse(Channels.newChannel(new ByteArrayInputStream(gzip(SVG))), diagram);
+
+        assertThat(getRect(diagram).getX()).isEqualTo(1d);
+    }
+
+    @Test
+    public void parsesGeometryInParallel() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<path d=\"M0,0 L1,1\"/>" +
+                "<g><rect width=\"1\" height=\"2\"/><polygon points=\"1,2 3,4\"/></g>" +
+                "<polyline points=\"5,6 7,8\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+        List<Node> nodes = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            new SvgParser(nodes::add, SvgEntityResolver.OFFLINE, pool).parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+        } finally {
+            pool.shutdown();
+        }
+
+        Group root = (Group) diagram.getChildren().get(0);
+        Group group = (Group) root.getChildren().get(1);
+        assertThat(root.getChildren()).hasSize(3);
+        assertThat(((Path) root.getChildren().get(0)).getElements()).hasSize(2);
+        assertThat(group.getChildren().get(0)).isInstanceOf(Rectangle.class);
+        assertThat(((Polygon) group.getChildren().get(1)).getPoints()).containsExactly(1d, 2d, 3d, 4d);
+        assertThat(((Polyline) root.getChildren().get(2)).getPoints()).containsExactly(5d, 6d, 7d, 8d);
+        assertThat(nodes).containsExactly(root, root.getChildren().get(0), group, group.getChildren().get(0),
+                group.getChildren().get(1), root.getChildren().get(2));
+    }
+
+    @Test
+    public void createsNodesWhileReadingWithGeometryPool() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            SvgParser parser = new SvgParser(nodes::add, SvgEntityResolver.OFFLINE, pool, LoadMetrics.DISABLED, () -> !nodes.isEmpty());
+            assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(rects(1000)), new Group()))
+                    .isInstanceOf(CancellationException.class);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(nodes.size()).isBetween(1, 999);
+    }
+
+    @Test
+    public void reusesShapeFactoriesAcrossSteps() throws Exception {
+        Group diagram = new Group();
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            new SvgParser(node -> {}, SvgEntityResolver.OFFLINE, pool).parse(new ByteArrayInputStream(rects(1000)), diagram);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(1000);
+        for (int i = 0; i < nodes.size(); i++) {
+            assertThat(((Rectangle) nodes.get(i)).getX()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void stopsParsingWhenCancelled() throws Exception {
+        List<Node> nodes = new ArrayList<>();
+        SvgParser parser = new SvgParser(nodes::add, SvgEntityResolver.OFFLINE, null, LoadMetrics.DISABLED, () -> nodes.size() >= 10);
+
+        assertThatThrownBy(() -> parser.parse(new ByteArrayInputStream(rects(100)), new Group()))
+                .isInstanceOf(CancellationException.class);
+
+        assertThat(nodes).hasSize(10);
+    }
+
+    @Test
+    public void createsTextNodeForEachPositionedRun() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<text x=\"1\" y=\"2\" fill=\"red\">\n" +
+                "  <tspan x=\"3\" y=\"4\">first <tspan fill=\"blue\">line</tspan></tspan>\n" +
+                "  <tspan x=\"5\" y=\"6\" fill=\"blue\">second\tline\n  wraps </tspan>\n" +
+                "</text>" +
+                "<text x=\"7\" y=\"8\">  plain &amp;\n\n simple  </text>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(3);
+        Text first = (Text) nodes.get(0);
+        assertThat(first.getText()).isEqualTo("first line");
+        assertThat(first.getX()).isEqualTo(3d);
+        assertThat(first.getY()).isEqualTo(4d);
+        assertThat(first.getFill()).isEqualTo(Color.RED);
+        Text second = (Text) nodes.get(1);
+        assertThat(second.getText()).isEqualTo("second line wraps");
+        assertThat(second.getX()).isEqualTo(5d);
+        assertThat(second.getFill()).isEqualTo(Color.BLUE);
+        Text plain = (Text) nodes.get(2);
+        assertThat(plain.getText()).isEqualTo("plain & simple");
+        assertThat(plain.getX()).isEqualTo(7d);
+    }
+
+    @Test
+    public void restoresTextAttributesAfterPositionedSpan() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<text x=\"1\" y=\"2\" fill=\"red\"><tspan x=\"5\" y=\"6\" fill=\"blue\">second line</tspan> end\n</text>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(2);
+        Text span = (Text) nodes.get(0);
+        assertThat(span.getText()).isEqualTo("second line");
+        assertThat(span.getFill()).isEqualTo(Color.BLUE);
+        Text end = (Text) nodes.get(1);
+        assertThat(end.getText()).isEqualTo(" end");
+        assertThat(end.getFill()).isEqualTo(Color.RED);
+        assertThat(end.getX()).isEqualTo(5d + span.getLayoutBounds().getWidth());
+        assertThat(end.getY()).isEqualTo(6d);
+    }
+
+    @Test
+    public void instantiatesTemplatesForUseElements() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">" +
+                "<defs><path id=\"arrow\" d=\"M0,0 L10,0\"/></defs>" +
+                "<symbol id=\"valve\"><polygon points=\"0,0 1,1 0,1\"/><use xlink:href=\"#arrow\"/></symbol>" +
+                "<use xlink:href=\"#arrow\" x=\"5\" y=\"6\" fill=\"red\"/>" +
+                "<use href=\"#valve\" transform=\"scale(2)\"/>" +
+                "<use xlink:href=\"#missing\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(3);
+        Group arrowUse = (Group) nodes.get(0);
+        assertThat(arrowUse.getLocalToParentTransform().getTx()).isEqualTo(5d);
+        assertThat(arrowUse.getLocalToParentTransform().getTy()).isEqualTo(6d);
+        Path arrow = (Path) arrowUse.getChildren().get(0);
+        assertThat(arrow.getFill()).isEqualTo(Color.RED);
+        Group valveUse = (Group) nodes.get(1);
+        Group valve = (Group) valveUse.getChildren().get(0);
+        assertThat(((Polygon) valve.getChildren().get(0)).getPoints()).containsExactly(0d, 0d, 1d, 1d, 0d, 1d);
+        Path nestedArrow = (Path) ((Group) valve.getChildren().get(1)).getChildren().get(0);
+        assertThat(nestedArrow).isNotSameAs(arrow);
+        assertThat(nestedArrow.getElements().get(1)).isSameAs(arrow.getElements().get(1));
+        assertThat(((LineTo) nestedArrow.getElements().get(1)).getX()).isEqualTo(10d);
+        assertThat(((Group) nodes.get(2)).getChildren()).isEmpty();
+    }
+
+    @Test
+    public void editingUseInstanceDoesNotChangeOtherInstances() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<defs><path id=\"arrow\" d=\"M0,0 L10,0\"/></defs>" +
+                "<use href=\"#arrow\"/><use href=\"#arrow\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        Path first = (Path) ((Group) nodes.get(0)).getChildren().get(0);
+        Path second = (Path) ((Group) nodes.get(1)).getChildren().get(0);
+        ((LineTo) ((PathModel) first.getUserData()).getElements().get(1)).setX(20d);
+        assertThat(((LineTo) first.getElements().get(1)).getX()).isEqualTo(20d);
+        assertThat(((LineTo) second.getElements().get(1)).getX()).isEqualTo(10d);
+        assertThat(((PathModel) second.getUserData()).isShared()).isTrue();
+    }
+
+    @Test
+    public void useInstancesShareTemplateGeometryUntilEdited() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<defs><path id=\"arrow\" d=\"M0,0 L10,0\"/></defs>" +
+                "<use href=\"#arrow\"/><use href=\"#arrow\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        Path first = (Path) ((Group) nodes.get(0)).getChildren().get(0);
+        Path second = (Path) ((Group) nodes.get(1)).getChildren().get(0);
+        assertThat(first.getElements().get(1)).isSameAs(second.getElements().get(1));
+        assertThat(((PathModel) first.getUserData()).isShared()).isTrue();
+    }
+
+    @Test
+    public void instantiatesForwardReferences() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<use href=\"#box\" x=\"5\"/>" +
+                "<rect width=\"1\" height=\"1\"/>" +
+                "<defs><g id=\"box\"><rect width=\"2\" height=\"3\"/><use href=\"#arrow\"/></g><path id=\"arrow\" d=\"M0,0 L10,0\"/></defs>" +
+                "</svg>";
+        Group diagram = new Group();
+        List<Node> consumed = new ArrayList<>();
+
+        new SvgParser(consumed::add).parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(2);
+        Group use = (Group) nodes.get(0);
+        assertThat(use.getLocalToParentTransform().getTx()).isEqualTo(5d);
+        Group box = (Group) use.getChildren().get(0);
+        assertThat(((Rectangle) box.getChildren().get(0)).getHeight()).isEqualTo(3d);
+        Path arrow = (Path) ((Group) box.getChildren().get(1)).getChildren().get(0);
+        assertThat(arrow.getElements()).hasSize(2);
+        assertThat(consumed).contains(box, arrow);
+    }
+
+    @Test
+    public void appliesStyleSheetAndStyleAttributes() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<defs><style><![CDATA[ rect { fill: red } .outline { stroke: blue } #last { fill: green } ]]></style></defs>" +
+                "<rect width=\"1\" height=\"1\" fill=\"black\"/>" +
+                "<rect class=\"outline\" width=\"1\" height=\"1\" style=\"fill: yellow\"/>" +
+                "<rect id=\"last\" width=\"1\" height=\"1\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        assertThat(nodes).hasSize(3);
+        assertThat(((Rectangle) nodes.get(0)).getFill()).isEqualTo(Color.RED);
+        assertThat(((Rectangle) nodes.get(1)).getFill()).isEqualTo(Color.YELLOW);
+        assertThat(((Rectangle) nodes.get(1)).getStroke()).isEqualTo(Color.BLUE);
+        assertThat(((Rectangle) nodes.get(2)).getFill()).isEqualTo(Color.GREEN);
+    }
+
+    @Test
+    public void sharesGradientPaints() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">" +
+                "<defs><linearGradient id=\"fade\"><stop offset=\"0\" style=\"stop-color:#ff0000\"/>" +
+                "<stop offset=\"100%\" stop-color=\"blue\" stop-opacity=\"0.5\"/></linearGradient></defs>" +
+                "<g fill=\"url(#fade)\"><rect width=\"1\" height=\"1\"/></g>" +
+                "<rect width=\"1\" height=\"1\" fill=\"url(#fade)\"/>" +
+                "<rect width=\"1\" height=\"1\" fill=\"url(#missing) green\"/>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        Rectangle grouped = (Rectangle) ((Group) nodes.get(0)).getChildren().get(0);
+        assertThat(grouped.getFill()).isInstanceOf(LinearGradient.class);
+        LinearGradient gradient = (LinearGradient) grouped.getFill();
+        assertThat(gradient.getStops()).containsExactly(new Stop(0d, Color.RED), new Stop(1d, Color.color(0, 0, 1, 0.5)));
+        assertThat(((Rectangle) nodes.get(1)).getFill()).isSameAs(gradient);
+        assertThat(((Rectangle) nodes.get(2)).getFill()).isEqualTo(Color.GREEN);
+    }
+
+    @Test
+    public void resolvesGradientsDefinedAfterUse() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">" +
+                "<rect width=\"1\" height=\"1\" fill=\"url(#fade)\" stroke=\"url(#fade) red\"/>" +
+                "<g fill=\"url(#fade)\"><rect width=\"1\" height=\"1\"/><rect width=\"1\" height=\"1\" fill=\"green\"/></g>" +
+                "<rect width=\"1\" height=\"1\" fill=\"url(#missing) blue\"/>" +
+                "<linearGradient id=\"fade\"><stop offset=\"0\" stop-color=\"red\"/><stop offset=\"1\" stop-color=\"blue\"/></linearGradient>" +
+                "</svg>";
+        Group diagram = new Group();
+
+        new SvgParser().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)), diagram);
+
+        List<Node> nodes = ((Group) diagram.getChildren().get(0)).getChildren();
+        Rectangle rect = (Rectangle) nodes.get(0);
+        assertThat(rect.getFill()).isInstanceOf(LinearGradient.class);
+        assertThat(rect.getStroke()).isSameAs(rect.getFill());
+        Group group = (Group) nodes.get(1);
+        assertThat(((Rectangle) group.getChildren().get(0)).getFill()).isSameAs(rect.getFill());
+        assertThat(((Rectangle) group.getChildren().get(1)).getFill()).isEqualTo(Color.GREEN);
+        assertThat(new ShapeFactory(new AttributesImpl(), group).getRect().getFill()).isSameAs(rect.getFill());
+        assertThat(((Rectangle) nodes.get(2)).getFill()).isEqualTo(Color.BLUE);
+    }
+
+    @Test
+    public void recordsLoadMetrics() throws Exception {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><style>.a { fill: red }</style>" +
+                "<g transform=\"translate(1,2)\"><path class=\"a\" d=\"M0,0 L10,10\"/><path d=\"M1,1 L2,2\"/></g>" +
+                "<rect width=\"1\" height=\"1\" transform=\"scale(2)\"/>" +
+                "</svg>";
+        byte[] bytes = svg.getBytes(StandardCharsets.UTF_8);
+        LoadMetrics metrics = new LoadMetrics();
+
+        new SvgParser(node -> {}, SvgEntityResolver.OFFLINE, null, metrics).parse(new ByteArrayInputStream(bytes), new Group());
+
+        assertThat(metrics.getElementCounts()).containsOnly(entry("svg", 1L), entry("style", 1L), entry("g", 1L),
+                entry("path", 2L), entry("rect", 1L));
+        assertThat(metrics.getBytesRead()).isEqualTo(bytes.length);
+        assertThat(metrics.getParseNanos()).isGreaterThan(0L);
+        assertThat(metrics.getPhaseNanos(LoadMetrics.Phase.PATHS)).isGreaterThan(0L);
+        assertThat(metrics.getPhaseNanos(LoadMetrics.Phase.TRANSFORMS)).isGreaterThan(0L);
+        assertThat(metrics.getPhaseNanos(LoadMetrics.Phase.STYLES)).isGreaterThan(0L);
+        assertThat(metrics.getPhaseNanos(LoadMetrics.Phase.ATTACH)).isGreaterThan(0L);
+    }
+
+    private static Rectangle getRect(Group diagram) {
+        return (Rectangle) ((Group) diagram.getChildren().get(0)).getChildren().get(0);
+    }
+
+    private static byte[] rects(int count) {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\">");
+        for (int i = 0; i < count; i++) {
+            svg.append("<rect x=\"").append(i).append("\" width=\"1\" height=\"1\"/>");
+        }
+        return svg.append("</svg>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(String text) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
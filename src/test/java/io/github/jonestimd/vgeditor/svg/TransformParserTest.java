@@ -0,0 +1,93 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2018 Tim Jones
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in all
+// copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+// SOFTWARE.
+package io.github.jonestimd.vgeditor.svg;
+
+import java.util.List;
+
+import javafx.geometry.Point2D;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
+import javafx.scene.transform.Translate;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TransformParserTest {
+    @Test
+    public void parseReturnsTransformsInDocumentOrder() throws Exception {
+        List<Transform> transforms = TransformParser.parse("translate(10) scale(2, 3)");
+
+        assertThat(transforms).hasSize(2);
+        assertThat(transforms.get(0)).isInstanceOf(Translate.class);
+        assertThat(transforms.get(1)).isInstanceOf(Scale.class);
+    }
+
+    @Test
+    public void parseReturnsCopiesOfCachedTransforms() throws Exception {
+        List<Transform> first = TransformParser.parse("translate(5 6)");
+        List<Transform> second = TransformParser.parse("translate(5 6)");
+
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(((Translate) second.get(0)).getX()).isEqualTo(5d);
+        assertThat(((Translate) second.get(0)).getY()).isEqualTo(6d);
+    }
+
+    @Test
+    public void parseAffineComposesTransforms() throws Exception {
+        Affine affine = TransformParser.parseAffine("translate(10,0) scale(2)");
+
+        assertThat(affine.transform(1, 1)).isEqualTo(new Point2D(12, 2));
+    }
+
+    @Test
+    public void parseAffineReturnsIdentityForNoTransforms() throws Exception {
+        assertThat(TransformParser.parseAffine("").isIdentity()).isTrue();
+    }
+
+    @Test
+    public void parsesMatrix() throws Exception {
+        Affine affine = TransformParser.parseAffine("matrix(1 2 3 4 5 6)");
+
+        assertThat(affine.transform(1, 0)).isEqualTo(new Point2D(6, 8));
+        assertThat(affine.transform(0, 1)).isEqualTo(new Point2D(8, 10));
+    }
+
+    @Test
+    public void parsesSkew() throws Exception {
+        Point2D skewX = TransformParser.parseAffine("skewX(45)").transform(0, 1);
+        Point2D skewY = TransformParser.parseAffine("skewY(45)").transform(1, 0);
+
+        assertThat(skewX.getX()).isCloseTo(1d, within(1e-9));
+        assertThat(skewX.getY()).isEqualTo(1d);
+        assertThat(skewY.getX()).isEqualTo(1d);
+        assertThat(skewY.getY()).isCloseTo(1d, within(1e-9));
+    }
+
+    @Test
+    public void parsesRotateAroundPoint() throws Exception {
+        Point2D point = TransformParser.parseAffine("rotate(90 10 10)").transform(20, 10);
+
+        assertThat(point.getX()).isCloseTo(10d, within(1e-9));
+        assertThat(point.getY()).isCloseTo(20d, within(1e-9));
+    }
+}